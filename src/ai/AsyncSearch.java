@@ -0,0 +1,49 @@
+package ai;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import model.board.Move;
+
+/**
+ * Execução das buscas assíncronas de IA.makeMoveAsync em threads daemon
+ * (não impedem a JVM/GUI de encerrar).
+ *
+ * Cancelar o token faz o futuro terminar como cancelado (assim que a busca
+ * devolve); cancelar o futuro também cancela o token.
+ */
+final class AsyncSearch {
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "IA-async");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private AsyncSearch() { /* utilitário */ }
+
+    static CompletableFuture<Move> submit(Supplier<Move> search, CancellationToken token) {
+        return submit(search, token, EXECUTOR);
+    }
+
+    /** Como submit(search, token), executando a busca em executor. */
+    static CompletableFuture<Move> submit(Supplier<Move> search, CancellationToken token, Executor executor) {
+        CompletableFuture<Move> future = new CompletableFuture<>();
+        future.whenComplete((move, error) -> {
+            if (future.isCancelled()) token.cancel();
+        });
+        executor.execute(() -> {
+            if (future.isDone()) return;
+            try {
+                Move move = token.isCancelled() ? null : search.get();
+                if (token.isCancelled()) future.cancel(false);
+                else future.complete(move);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+}
@@ -0,0 +1,18 @@
+package ai;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pedido de cancelamento de uma busca assíncrona (IA.makeMoveAsync).
+ *
+ * Quem iniciou a busca chama cancel(); a busca confere o token junto com o
+ * relógio e para em poucos milhares de nós. Um token vale para uma busca só.
+ */
+public final class CancellationToken {
+
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    public void cancel() { cancelled.set(true); }
+
+    public boolean isCancelled() { return cancelled.get(); }
+}
@@ -0,0 +1,84 @@
+package ai;
+
+import controller.Game;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import model.board.Move;
+
+/**
+ * Motor de longa duração ligado a uma partida: a mesma IANivel3 responde a todos
+ * os lances, então a tabela de transposição, os killers/histórico e as pilhas por
+ * ply da busca sobrevivem de um lance para o outro. A árvore buscada no lance
+ * anterior (incluindo a resposta prevista do adversário) já está na tabela e
+ * encurta as primeiras iterações do lance seguinte.
+ *
+ * Quando o jogo recomeça (Game.newGame(), visto por Game.generation()) o estado
+ * é descartado antes da próxima busca; reset() faz o mesmo explicitamente.
+ *
+ * As buscas rodam uma de cada vez numa thread própria da sessão: pedir um lance
+ * com outro ainda em andamento enfileira o novo pedido (cancele o anterior).
+ */
+public final class EngineSession implements AutoCloseable {
+
+    private final Game game;
+    private final IANivel3 engine;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "EngineSession");
+        t.setDaemon(true); // não impede a JVM/GUI de encerrar
+        return t;
+    });
+
+    // Partida (Game.generation) cujo estado está no motor; só a thread da sessão altera
+    private int generation;
+
+    /** Sessão com a configuração padrão de IANivel3. */
+    public EngineSession(Game game) {
+        this(game, new IANivel3());
+    }
+
+    /** Sessão que usa engine (já configurada: livro, tabelas, threads...). */
+    public EngineSession(Game game, IANivel3 engine) {
+        this.game = game;
+        this.engine = engine;
+        this.generation = game.generation();
+    }
+
+    public Game game() { return game; }
+
+    /** O motor da sessão, para configuração e diagnóstico do último lance. */
+    public IANivel3 engine() { return engine; }
+
+    /** Lance para a posição atual do jogo (bloqueia até a busca terminar). */
+    public Move think(SearchLimits limits) {
+        return thinkAsync(limits, new CancellationToken(), null).join();
+    }
+
+    /**
+     * Lance para a posição atual do jogo, em outra thread. A posição é copiada aqui:
+     * o chamador pode continuar usando o jogo. Ver IA.makeMoveAsync.
+     */
+    public CompletableFuture<Move> thinkAsync(SearchLimits limits, CancellationToken token,
+                                              SearchListener listener) {
+        Game snapshot = game.snapshotShallow();
+        int gen = game.generation();
+        return AsyncSearch.submit(() -> {
+            if (gen != generation) {
+                engine.reset();
+                generation = gen;
+            }
+            return engine.search(snapshot, limits, token, listener);
+        }, token, executor);
+    }
+
+    /** Descarta o estado aprendido (espera a busca em andamento, se houver). */
+    public void reset() {
+        CompletableFuture.runAsync(engine::reset, executor).join();
+    }
+
+    /** Encerra a thread da sessão; buscas já pedidas ainda terminam. */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -1,6 +1,7 @@
 package ai;
 
 import controller.Game;
+import java.util.concurrent.CompletableFuture;
 import model.board.Move;
 
 public interface IA {
@@ -11,4 +12,33 @@ public interface IA {
      * @return O movimento escolhido pela IA.
      */
     Move makeMove(Game game);
+
+    /**
+     * Decide o próximo movimento respeitando limites de profundidade, tempo ou nós.
+     * IAs sem busca ignoram os limites.
+     *
+     * @param game O estado atual do jogo.
+     * @param limits Orçamento da busca para este lance.
+     * @return O movimento escolhido pela IA.
+     */
+    default Move makeMove(Game game, SearchLimits limits) {
+        return makeMove(game);
+    }
+
+    /**
+     * Decide o próximo movimento em outra thread. A busca trabalha sobre uma cópia
+     * do jogo, feita aqui: o chamador pode continuar usando game.
+     * IAs sem busca ignoram o listener.
+     *
+     * @param game O estado atual do jogo.
+     * @param limits Orçamento da busca para este lance.
+     * @param token Cancela a busca; o futuro então termina como cancelado.
+     * @param listener Andamento a cada iteração (pode ser null).
+     * @return O movimento escolhido, quando a busca terminar.
+     */
+    default CompletableFuture<Move> makeMoveAsync(Game game, SearchLimits limits,
+                                                  CancellationToken token, SearchListener listener) {
+        Game snapshot = game.snapshotShallow();
+        return AsyncSearch.submit(() -> makeMove(snapshot, limits), token);
+    }
 }
\ No newline at end of file
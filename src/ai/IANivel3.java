@@ -2,134 +2,374 @@ package ai;
 
 import controller.Game;
 import model.board.Move;
-import model.board.Position;
-import model.pieces.Piece;
+import model.board.MoveList;
+import model.board.PackedMove;
+import model.board.PieceSquareTable;
+import model.tablebase.Tablebase;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class IANivel3 implements IA {
 
-    private static final int MAX_DEPTH = 3; // Profundidade máxima da busca
+    private static final int DEFAULT_HASH_MB = 16;
+    private static final int DEFAULT_PAWN_HASH_MB = 1;
+    private static final long DEFAULT_SEED = 0x5EEDL;
+
+    // Posições já buscadas, compartilhada por todas as linhas de busca
+    private final TranspositionTable tt;
+
+    // Linha principal (decide o lance) e auxiliares do Lazy SMP
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+    private final Searcher main;
+    private final List<Searcher> helpers = new ArrayList<>();
+    private ExecutorService helperPool;
+    private int threads = 1;
+
+    // Livro de aberturas consultado antes da busca (null = sem livro)
+    private OpeningBook book;
+    // Tabelas de finais: na raiz escolhem o lance, na busca encerram o ramo (null = sem tabelas)
+    private Tablebase tablebase;
+
+    private boolean quiescenceChecks = false;
+    // Técnicas seletivas da busca (todas ligadas por padrão)
+    private final EnumSet<Pruning> pruning = EnumSet.allOf(Pruning.class);
+    private int pawnHashMb = DEFAULT_PAWN_HASH_MB;
+    // Sorteios (livro, empates na raiz); recomeça da semente a cada busca
+    private final Random random = new Random();
+    private long seed = DEFAULT_SEED;
+
+    // Diagnóstico do último makeMove
+    private int completedDepth;
+    private long lastNodes;
+    private long lastQNodes;
+    private boolean lastFromBook;
+    private long lastTbHits;
+    private final long[] lastPruning = new long[Pruning.values().length];
+
+    public IANivel3() {
+        this(DEFAULT_HASH_MB);
+    }
+
+    /** IA com tabela de transposição de hashMb megabytes. */
+    public IANivel3(int hashMb) {
+        this(new TranspositionTable(hashMb));
+    }
+
+    /** IA que usa a tabela informada (pode ser compartilhada entre buscas). */
+    public IANivel3(TranspositionTable tt) {
+        this.tt = tt;
+        this.main = new Searcher(tt, stopSignal);
+    }
+
+    public TranspositionTable transpositionTable() { return tt; }
+
+    /**
+     * Esquece tudo o que as buscas anteriores aprenderam (tabela de transposição,
+     * killers e histórico), como antes de uma nova partida. As configurações ficam.
+     * Não chame durante uma busca.
+     */
+    public void reset() {
+        tt.clear();
+        main.clearHeuristics();
+        for (Searcher helper : helpers) helper.clearHeuristics();
+    }
+
+    /** Profundidade da última iteração completa do último lance calculado. */
+    public int completedDepth() { return completedDepth; }
+
+    /** Nós visitados no último lance calculado (todas as threads). */
+    public long lastNodes() { return lastNodes; }
+
+    /** Nós de quiescência visitados no último lance calculado (parte de lastNodes). */
+    public long lastQNodes() { return lastQNodes; }
+
+    /** true se o último lance calculado veio do livro de aberturas (sem busca). */
+    public boolean lastMoveFromBook() { return lastFromBook; }
+
+    public OpeningBook getOpeningBook() { return book; }
+
+    /** Livro consultado antes de cada busca; null desliga. */
+    public void setOpeningBook(OpeningBook book) { this.book = book; }
+
+    public Tablebase getTablebase() { return tablebase; }
+
+    /** Tabelas de finais consultadas na raiz e durante a busca; null desliga. */
+    public void setTablebase(Tablebase tablebase) { this.tablebase = tablebase; }
+
+    /** Nós do último lance resolvidos pelas tabelas de finais (todas as threads). */
+    public long lastTablebaseHits() { return lastTbHits; }
+
+    public boolean isPruning(Pruning technique) { return pruning.contains(technique); }
+
+    /** Liga ou desliga uma técnica seletiva da busca (vale a partir do próximo lance). */
+    public void setPruning(Pruning technique, boolean enabled) {
+        if (enabled) pruning.add(technique);
+        else pruning.remove(technique);
+    }
+
+    /** Quantas vezes a técnica agiu no último lance (todas as threads; ver Pruning). */
+    public long lastPruningCount(Pruning technique) { return lastPruning[technique.ordinal()]; }
+
+    public boolean isQuiescenceChecks() { return quiescenceChecks; }
+    public void setQuiescenceChecks(boolean enabled) { this.quiescenceChecks = enabled; }
+
+    /** Fração dos cortes beta do último lance que vieram do primeiro lance tentado. */
+    public double firstMoveCutoffRate() { return main.firstMoveCutoffRate(); }
+
+    /** Novas buscas de janela cheia (PVS) da linha principal no último lance. */
+    public long lastResearches() { return main.researches(); }
+
+    /** Iterações da raiz repetidas por falha da janela de aspiração no último lance. */
+    public long lastAspirationFails() { return main.aspirationFails(); }
+
+    /** Fração das avaliações do último lance cuja estrutura de peões veio da tabela. */
+    public double pawnHashHitRate() { return main.pawnHashHitRate(); }
+
+    public int getPawnHashMb() { return pawnHashMb; }
+
+    /** Tamanho, em megabytes, da tabela de peões de cada linha de busca. */
+    public void setPawnHashMb(int mb) {
+        if (mb < 1) throw new IllegalArgumentException("Tamanho inválido: " + mb);
+        this.pawnHashMb = mb;
+    }
+
+    public int getThreads() { return threads; }
+
+    /**
+     * Número de threads de busca (Lazy SMP). Com 1 thread a busca é sequencial e,
+     * sob limite de profundidade ou de nós, determinística (veja setSeed).
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Threads inválidas: " + threads);
+        this.threads = threads;
+    }
+
+    /**
+     * Semente do sorteio do livro e entre lances de mesmo valor. Cada busca recomeça
+     * dela: a mesma posição com a mesma configuração dá sempre o mesmo lance.
+     */
+    public void setSeed(long seed) { this.seed = seed; }
 
     @Override
     public Move makeMove(Game game) {
-        List<Move> allLegalMoves = collectAllLegalMoves(game, game.whiteToMove());
-        if (allLegalMoves.isEmpty()) {
+        return makeMove(game, SearchLimits.DEFAULT);
+    }
+
+    /**
+     * Aprofundamento iterativo: busca a 1, 2, 3... plies até esgotar o orçamento.
+     * O lance devolvido vem sempre da última iteração COMPLETA da linha principal;
+     * uma iteração interrompida pelo relógio (ou pelos nós) é descartada.
+     *
+     * Com mais de uma thread, as linhas auxiliares buscam a mesma raiz em cópias
+     * próprias do jogo e só se comunicam pela tabela de transposição: os resultados
+     * delas aceleram a linha principal. O limite de nós vale para a linha principal.
+     */
+    @Override
+    public Move makeMove(Game game, SearchLimits limits) {
+        return search(game.snapshotShallow(), limits, null, null);
+    }
+
+    /**
+     * Busca em outra thread, cancelável pelo token; o listener recebe profundidade,
+     * valor, variante principal e nós ao fim de cada iteração. Uma IANivel3 faz uma
+     * busca por vez: espere (ou cancele) a anterior antes de pedir outra.
+     */
+    @Override
+    public CompletableFuture<Move> makeMoveAsync(Game game, SearchLimits limits,
+                                                 CancellationToken token, SearchListener listener) {
+        Game snapshot = game.snapshotShallow();
+        return AsyncSearch.submit(() -> search(snapshot, limits, token, listener), token);
+    }
+
+    /**
+     * Busca a partir de root, que passa a pertencer à busca: quem chama entrega uma
+     * cópia (Game.snapshotShallow) e o jogo da GUI não é alterado. Daí em diante a
+     * busca aplica e desfaz lances no mesmo tabuleiro.
+     */
+    Move search(Game root, SearchLimits limits, CancellationToken token, SearchListener listener) {
+        random.setSeed(seed);
+        main.start(root);
+        main.quiescenceChecks = quiescenceChecks;
+        main.setPawnHashMb(pawnHashMb);
+        main.tablebase = tablebase;
+        main.setPruning(pruning);
+        main.tieBreak = random;
+        MoveList rootMoves = main.rootMoves();
+        completedDepth = 0;
+        lastNodes = 0;
+        lastQNodes = 0;
+        lastFromBook = false;
+        lastTbHits = 0;
+        Arrays.fill(lastPruning, 0);
+        if (rootMoves.isEmpty()) {
             return null;
         }
+        if (book != null) {
+            int bookMove = book.pick(root, random);
+            if (bookMove != PackedMove.NONE) {
+                lastFromBook = true;
+                return root.toMove(bookMove);
+            }
+        }
+        int tbMove = tablebaseMove(root, rootMoves);
+        if (tbMove != PackedMove.NONE) {
+            return root.toMove(tbMove);
+        }
+        if (rootMoves.size() == 1 && limits.hasTimeLimit()) {
+            return root.toMove(rootMoves.get(0)); // lance forçado: não gasta o orçamento
+        }
 
-        double bestScore = game.whiteToMove() ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
-        List<Move> bestMoves = new ArrayList<>();
+        long start = System.nanoTime();
+        long budget = limits.timeMillis() * 1_000_000L;
+        long softLimit = limits.hasTimeLimit() ? softBudget(root, budget, rootMoves.size()) : Long.MAX_VALUE;
+        long hardDeadline = limits.hasTimeLimit() ? start + budget : Long.MAX_VALUE;
+        main.setLimits(hardDeadline, limits.nodes());
+        main.setCancellation(token);
+        stopSignal.set(false);
+        tt.newSearch();
 
-        for (Move move : allLegalMoves) {
-            Game gameCopy = game.snapshotShallow();
-            Character promo = move.getPromotion();
-            gameCopy.move(move.getFrom(), move.getTo(), promo);
+        List<Future<?>> running = startHelpers(root, hardDeadline, limits.maxDepth());
+        int bestMove = PackedMove.NONE;
+        try {
+            long prevIterationNodes = 0;
+            for (int depth = 1; depth <= limits.maxDepth(); depth++) {
+                long iterationStart = System.nanoTime();
+                long nodesBefore = main.nodes();
 
-            double score = minimax(gameCopy, MAX_DEPTH, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, !game.whiteToMove());
+                int iterationBest = main.iterate(depth);
+                if (main.isStopped()) break;
 
-            if (game.whiteToMove()) { // Maximiza para as brancas
-                if (score > bestScore) {
-                    bestScore = score;
-                    bestMoves.clear();
-                    bestMoves.add(move);
-                } else if (score == bestScore) {
-                    bestMoves.add(move);
+                bestMove = iterationBest;
+                completedDepth = depth;
+                if (listener != null) {
+                    long nodes = main.nodes();
+                    for (int i = 0; i < running.size(); i++) nodes += helpers.get(i).nodes();
+                    listener.onIteration(new SearchInfo(depth, main.rootScore(),
+                            main.principalVariation(), nodes,
+                            (System.nanoTime() - start) / 1_000_000));
                 }
-            } else { // Minimiza para as pretas
-                if (score < bestScore) {
-                    bestScore = score;
-                    bestMoves.clear();
-                    bestMoves.add(move);
-                } else if (score == bestScore) {
-                    bestMoves.add(move);
+                if (Math.abs(main.rootScore()) >= Searcher.MATE_BOUND) break; // mate encontrado
+
+                if (limits.hasTimeLimit()) {
+                    long now = System.nanoTime();
+                    long iterationNodes = main.nodes() - nodesBefore;
+                    // Fator de ramificação efetivo: custo da próxima iteração ~ custo desta * ebf
+                    double ebf = prevIterationNodes > 0
+                            ? Math.max(2.0, Math.min(8.0, (double) iterationNodes / prevIterationNodes))
+                            : 4.0;
+                    long predicted = (long) ((now - iterationStart) * ebf);
+                    if (now - start >= softLimit || now + predicted > hardDeadline) break;
+                    prevIterationNodes = iterationNodes;
                 }
             }
+        } finally {
+            stopHelpers(running);
         }
 
-        Random random = new Random();
-        return bestMoves.get(random.nextInt(bestMoves.size()));
-    }
-
-    private double minimax(Game game, int depth, double alpha, double beta, boolean maximizingPlayer) {
-        if (depth == 0 || game.isGameOver()) {
-            return evaluateBoard(game);
+        lastNodes = main.nodes();
+        lastQNodes = main.qnodes();
+        lastTbHits = main.tbHits();
+        for (Pruning p : Pruning.values()) lastPruning[p.ordinal()] = main.pruningCount(p);
+        for (int i = 0; i < running.size(); i++) {
+            Searcher helper = helpers.get(i);
+            lastNodes += helper.nodes();
+            lastQNodes += helper.qnodes();
+            lastTbHits += helper.tbHits();
+            for (Pruning p : Pruning.values()) lastPruning[p.ordinal()] += helper.pruningCount(p);
         }
 
-        List<Move> allLegalMoves = collectAllLegalMoves(game, maximizingPlayer);
+        if (bestMove == PackedMove.NONE) {
+            // Nem a primeira iteração terminou: qualquer lance legal é melhor que nenhum
+            return root.toMove(rootMoves.get(0));
+        }
+        return root.toMove(bestMove); // o primeiro lance da variante informada ao listener
+    }
 
-        if (maximizingPlayer) {
-            double maxEval = Double.NEGATIVE_INFINITY;
-            for (Move move : allLegalMoves) {
-                Game gameCopy = game.snapshotShallow();
-                Character promo = move.getPromotion();
-                gameCopy.move(move.getFrom(), move.getTo(), promo);
+    // --------- Lazy SMP ----------
 
-                double eval = minimax(gameCopy, depth - 1, alpha, beta, false);
-                maxEval = Math.max(maxEval, eval);
-                alpha = Math.max(alpha, eval);
-                if (beta <= alpha) {
-                    break; // Poda
-                }
-            }
-            return maxEval;
-        } else {
-            double minEval = Double.POSITIVE_INFINITY;
-            for (Move move : allLegalMoves) {
-                Game gameCopy = game.snapshotShallow();
-                Character promo = move.getPromotion();
-                gameCopy.move(move.getFrom(), move.getTo(), promo);
-
-                double eval = minimax(gameCopy, depth - 1, alpha, beta, true);
-                minEval = Math.min(minEval, eval);
-                beta = Math.min(beta, eval);
-                if (beta <= alpha) {
-                    break; // Poda
-                }
-            }
-            return minEval;
+    private List<Future<?>> startHelpers(Game root, long hardDeadline, int maxDepth) {
+        List<Future<?>> running = new ArrayList<>();
+        if (threads <= 1) return running;
+        if (helperPool == null) {
+            helperPool = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "IANivel3-helper");
+                t.setDaemon(true); // não impede a JVM/GUI de encerrar
+                return t;
+            });
         }
+        while (helpers.size() < threads - 1) helpers.add(new Searcher(tt, stopSignal));
+        for (int i = 0; i < threads - 1; i++) {
+            Searcher helper = helpers.get(i);
+            helper.start(root.snapshotShallow()); // cada linha com seu próprio tabuleiro
+            helper.quiescenceChecks = quiescenceChecks;
+            helper.setPawnHashMb(pawnHashMb);
+            helper.tablebase = tablebase;
+            helper.setPruning(pruning);
+            helper.setLimits(hardDeadline, 0);
+            int id = i + 1;
+            running.add(helperPool.submit(() -> helper.runHelper(id, maxDepth)));
+        }
+        return running;
     }
 
-    private List<Move> collectAllLegalMoves(Game game, boolean whiteSide) {
-        List<Move> moves = new ArrayList<>();
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Position from = new Position(r, c);
-                Piece piece = game.board().get(from);
-                if (piece != null && piece.isWhite() == whiteSide) {
-                    for (Position to : game.legalMovesFrom(from)) {
-                        Character promo = null;
-                        if (piece instanceof model.pieces.Pawn && game.isPromotion(from, to)) {
-                            promo = 'Q';
-                        }
-                        moves.add(new Move(from, to, piece, game.board().get(to), false, false, false, promo));
-                    }
-                }
+    private void stopHelpers(List<Future<?>> running) {
+        stopSignal.set(true);
+        for (Future<?> f : running) {
+            try {
+                f.get();
+            } catch (Exception ignored) {
+                // Linha auxiliar só alimenta a tabela; falhas não afetam o lance escolhido
             }
         }
-        return moves;
     }
 
-    private double evaluateBoard(Game game) {
-        double score = 0;
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Position pos = new Position(r, c);
-                Piece p = game.board().get(pos);
-                if (p != null) {
-                    int pieceValue = IAUtils.getPieceValue(p);
-                    int positionBonus = IAUtils.getPositionBonus(p, pos);
-
-                    if (p.isWhite()) {
-                        score += pieceValue + positionBonus;
-                    } else {
-                        score -= pieceValue + positionBonus;
-                    }
-                }
+    /**
+     * Fração do orçamento após a qual não se inicia nova iteração. No meio-jogo
+     * (muitas peças) cada iteração vale mais; no final a ramificação cai e as
+     * iterações ficam baratas, então o fator de ramificação decide o resto.
+     * Com poucos lances na raiz a escolha estabiliza cedo.
+     */
+    private static long softBudget(Game game, long budget, int rootMoveCount) {
+        int phase = Math.min(game.board().phase(), PieceSquareTable.MAX_PHASE);
+        double share = 0.35 + 0.25 * phase / PieceSquareTable.MAX_PHASE;
+        if (rootMoveCount <= 3) share *= 0.5;
+        return (long) (budget * share);
+    }
+
+    /**
+     * Lance da raiz pelas tabelas de finais: vencendo, o mate mais rápido; perdendo,
+     * o mais demorado. Empatada, tira da raiz os lances que perdem e deixa a busca
+     * escolher entre os que empatam. Devolve PackedMove.NONE quando a busca decide.
+     */
+    private int tablebaseMove(Game root, MoveList rootMoves) {
+        if (main.probeTablebase(root) == Tablebase.NOT_FOUND) return PackedMove.NONE;
+        int best = PackedMove.NONE, bestRank = Integer.MIN_VALUE;
+        int[] ranks = new int[rootMoves.size()];
+        for (int i = 0; i < rootMoves.size(); i++) {
+            root.makeMove(rootMoves.get(i));
+            int code = main.probeTablebase(root); // valor do ponto de vista do adversário
+            root.unmakeMove();
+            if (code == Tablebase.NOT_FOUND) return PackedMove.NONE; // ex.: en passant possível
+            if (Tablebase.isLoss(code)) ranks[i] = 1000 - Tablebase.plies(code);
+            else if (Tablebase.isWin(code)) ranks[i] = -1000 + Tablebase.plies(code);
+            else ranks[i] = 0;
+            if (ranks[i] > bestRank) {
+                bestRank = ranks[i];
+                best = rootMoves.get(i);
             }
         }
-        return score;
+        if (bestRank != 0) return best;
+        for (int i = rootMoves.size() - 1; i >= 0; i--) {
+            if (ranks[i] < 0) rootMoves.removeAt(i);
+        }
+        return PackedMove.NONE;
     }
-}
\ No newline at end of file
+}
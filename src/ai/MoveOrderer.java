@@ -0,0 +1,175 @@
+package ai;
+
+import java.util.Arrays;
+import model.board.Board;
+import model.board.MoveList;
+import model.board.PackedMove;
+import model.pieces.Piece;
+
+/**
+ * Ordenação de lances para a busca alfa-beta (quanto antes o melhor lance, mais cortes).
+ *
+ * Ordem por faixas de pontuação:
+ * 1. lance da tabela de transposição (melhor lance já conhecido da posição)
+ * 2. capturas que não perdem material (Board.see >= 0) e promoções, por MVV-LVA
+ *    (vítima mais valiosa, atacante menos valioso)
+ * 3. dois lances "killer" por ply (quietos que cortaram em posições irmãs)
+ * 4. lances quietos pela tabela de histórico (cortes acumulados por lado/origem/destino)
+ * 5. capturas que perdem material pela troca estática, por MVV-LVA
+ *
+ * Os lances são pontuados uma vez por nó e escolhidos por seleção (pickNext):
+ * como a maioria dos cortes vem nos primeiros lances, não se ordena a lista inteira.
+ * Também conta quantos cortes beta ocorrem já no primeiro lance (qualidade da ordem).
+ */
+final class MoveOrderer {
+
+    private static final int TT_MOVE = 1 << 30;
+    private static final int GOOD_CAPTURE = 1 << 28;
+    private static final int KILLER_1 = 1 << 27;
+    private static final int KILLER_2 = KILLER_1 - 1;
+    private static final int HISTORY_MAX = 1 << 20; // abaixo das faixas acima
+    private static final int LOSING_CAPTURE = -(1 << 21); // abaixo de todo o histórico (>= 0)
+
+    // Valor por tipo (Piece.PAWN..KING) para MVV-LVA
+    private static final int[] VALUE = {1, 3, 3, 5, 9, 20};
+
+    private final int[][] killers;
+    private final int[][] history = new int[2][64 * 64];
+    private final int[][] scores;
+
+    // Estatísticas de corte beta
+    private long cutoffs;
+    private long firstMoveCutoffs;
+
+    /** plies: número de plies (profundidade + quiescência) que a busca pode alcançar. */
+    MoveOrderer(int plies) {
+        killers = new int[plies][2];
+        scores = new int[plies][256];
+    }
+
+    /** Pontua os lances do ply (chame antes de pickNext). */
+    void score(Board board, MoveList moves, int ply, int ttMove, boolean white) {
+        if (scores[ply].length < moves.size()) scores[ply] = new int[moves.size() * 2];
+        int[] s = scores[ply];
+        int[] hist = history[white ? 0 : 1];
+        for (int i = 0; i < moves.size(); i++) {
+            int m = moves.get(i);
+            if (m == ttMove) {
+                s[i] = TT_MOVE;
+            } else if (PackedMove.isPromotion(m) || (PackedMove.isCapture(m) && !losesMaterial(board, m))) {
+                s[i] = GOOD_CAPTURE + mvvLva(board, m);
+            } else if (PackedMove.isCapture(m)) {
+                s[i] = LOSING_CAPTURE + mvvLva(board, m);
+            } else if (m == killers[ply][0]) {
+                s[i] = KILLER_1;
+            } else if (m == killers[ply][1]) {
+                s[i] = KILLER_2;
+            } else {
+                s[i] = hist[PackedMove.from(m) * 64 + PackedMove.to(m)];
+            }
+        }
+    }
+
+    /** Traz para o índice i o lance de maior pontuação entre i..fim e o devolve. */
+    int pickNext(MoveList moves, int ply, int i) {
+        int[] s = scores[ply];
+        int best = i;
+        for (int j = i + 1; j < moves.size(); j++) {
+            if (s[j] > s[best]) best = j;
+        }
+        if (best != i) {
+            int m = moves.get(i);
+            moves.set(i, moves.get(best));
+            moves.set(best, m);
+            int t = s[i];
+            s[i] = s[best];
+            s[best] = t;
+        }
+        return moves.get(i);
+    }
+
+    /** true se o lance no índice i (já escolhido por pickNext) só tem a nota do histórico. */
+    boolean isHistoryMove(int ply, int i) {
+        return scores[ply][i] < KILLER_2;
+    }
+
+    /** true se o lance no índice i (já escolhido por pickNext) é uma captura que perde material. */
+    boolean isLosingCapture(int ply, int i) {
+        return scores[ply][i] < 0;
+    }
+
+    /** Registra um corte beta do lance de índice moveIndex (killers e histórico só para quietos). */
+    void onCutoff(int move, int ply, int depth, boolean white, int moveIndex) {
+        cutoffs++;
+        if (moveIndex == 0) firstMoveCutoffs++;
+        if (PackedMove.isCapture(move) || PackedMove.isPromotion(move)) return;
+
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] hist = history[white ? 0 : 1];
+        int idx = PackedMove.from(move) * 64 + PackedMove.to(move);
+        hist[idx] += depth * depth;
+        if (hist[idx] >= HISTORY_MAX) {
+            // Envelhece a tabela inteira para manter as proporções sem estourar a faixa
+            for (int[] h : history) {
+                for (int k = 0; k < h.length; k++) h[k] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Nova busca, pliesPlayed plies depois da raiz anterior (negativo = posição sem
+     * relação com a anterior). Os killers do ply p + pliesPlayed vieram de posições
+     * à mesma distância da nova raiz e passam para o ply p; os demais são apagados.
+     * O histórico é reduzido.
+     */
+    void newSearch(int pliesPlayed) {
+        for (int p = 0; p < killers.length; p++) {
+            int from = pliesPlayed >= 0 ? p + pliesPlayed : killers.length;
+            killers[p][0] = from < killers.length ? killers[from][0] : 0;
+            killers[p][1] = from < killers.length ? killers[from][1] : 0;
+        }
+        for (int[] h : history) {
+            for (int k = 0; k < h.length; k++) h[k] >>= 2;
+        }
+        cutoffs = firstMoveCutoffs = 0;
+    }
+
+    /** Esquece killers e histórico (outra partida). */
+    void clear() {
+        for (int[] k : killers) k[0] = k[1] = 0;
+        for (int[] h : history) Arrays.fill(h, 0);
+        cutoffs = firstMoveCutoffs = 0;
+    }
+
+    long cutoffs() { return cutoffs; }
+
+    /** Fração dos cortes beta que vieram do primeiro lance tentado (0..1). */
+    double firstMoveCutoffRate() {
+        return cutoffs == 0 ? 0.0 : (double) firstMoveCutoffs / cutoffs;
+    }
+
+    // Só calcula a SEE quando o atacante vale mais que a vítima (senão a troca não perde)
+    private static boolean losesMaterial(Board board, int move) {
+        if (PackedMove.flags(move) == PackedMove.EN_PASSANT) return false;
+        int attacker = board.get(PackedMove.from(move)).getType();
+        int victim = board.get(PackedMove.to(move)).getType();
+        return VALUE[attacker] > VALUE[victim] && board.see(move) < 0;
+    }
+
+    private static int mvvLva(Board board, int move) {
+        int victim;
+        if (PackedMove.flags(move) == PackedMove.EN_PASSANT) {
+            victim = Piece.PAWN;
+        } else {
+            Piece captured = board.get(PackedMove.to(move));
+            victim = captured != null ? captured.getType() : -1;
+        }
+        int attacker = board.get(PackedMove.from(move)).getType();
+        int score = victim >= 0 ? VALUE[victim] * 16 - VALUE[attacker] : 0;
+        if (PackedMove.isPromotion(move)) score += VALUE[PackedMove.promotionType(move)] * 16;
+        return score;
+    }
+}
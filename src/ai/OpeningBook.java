@@ -0,0 +1,175 @@
+package ai;
+
+import controller.Game;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import model.board.MoveList;
+import model.board.PackedMove;
+
+/**
+ * Livro de aberturas no formato Polyglot (.bin), lido direto do arquivo mapeado
+ * em memória: abrir o livro não lê nada, e cada consulta toca só as poucas
+ * páginas visitadas pela busca binária (O(log n), sem cópia do arquivo no heap).
+ *
+ * O arquivo é uma sequência de entradas de 16 bytes big-endian, ordenadas pela chave:
+ *   chave (8 bytes, PolyglotKey) | lance (2) | peso (2) | aprendizado (4, ignorado)
+ * Lance: bits 0-2 coluna destino, 3-5 fileira destino, 6-8 coluna origem,
+ * 9-11 fileira origem, 12-14 promoção (0 nenhuma, 1 cavalo ... 4 dama).
+ * Roque é gravado como "rei captura a própria torre" (e1h1, e1a1, e8h8, e8a8).
+ *
+ * Consultas só leem o mapeamento: um livro pode ser usado por várias IAs/threads.
+ */
+public final class OpeningBook implements Closeable {
+
+    private static final int ENTRY_SIZE = 16;
+    // Um MappedByteBuffer endereça até 2 GB; livros maiores usam vários trechos
+    private static final int SEGMENT_ENTRIES = 1 << 26; // 1 GB por trecho
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final long entries;
+
+    /** Lance do livro para a posição consultada, com o peso registrado no arquivo. */
+    public static final class Entry {
+        public final int move;   // PackedMove legal na posição
+        public final int weight;
+
+        Entry(int move, int weight) {
+            this.move = move;
+            this.weight = weight;
+        }
+    }
+
+    private OpeningBook(FileChannel channel, MappedByteBuffer[] segments, long entries) {
+        this.channel = channel;
+        this.segments = segments;
+        this.entries = entries;
+    }
+
+    /** Mapeia o livro em path (somente leitura). */
+    public static OpeningBook open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size % ENTRY_SIZE != 0) {
+                throw new IOException(path + ": tamanho não é múltiplo de " + ENTRY_SIZE + " bytes");
+            }
+            long entries = size / ENTRY_SIZE;
+            int count = (int) ((entries + SEGMENT_ENTRIES - 1) / SEGMENT_ENTRIES);
+            MappedByteBuffer[] segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long offset = (long) i * SEGMENT_ENTRIES * ENTRY_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(size - offset,
+                        (long) SEGMENT_ENTRIES * ENTRY_SIZE)); // big-endian, como o formato
+            }
+            return new OpeningBook(channel, segments, entries);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Livro padrão: o arquivo de -Dchess.book=<caminho> ou, na falta, resources/book.bin.
+     * Devolve null se não houver livro; um arquivo que não pode ser aberto é erro.
+     */
+    public static OpeningBook openDefault() throws IOException {
+        String custom = System.getProperty("chess.book");
+        File f = new File(custom != null ? custom : "resources" + File.separator + "book.bin");
+        return f.isFile() ? open(f.toPath()) : null;
+    }
+
+    /** Número de entradas do arquivo. */
+    public long size() { return entries; }
+
+    /** Lances do livro para a posição atual (só os legais), na ordem do arquivo. */
+    public List<Entry> lookup(Game game) {
+        List<Entry> found = new ArrayList<>();
+        long key = PolyglotKey.key(game);
+        long i = lowerBound(key);
+        if (i >= entries || keyAt(i) != key) return found;
+
+        MoveList legal = new MoveList();
+        game.generateLegalMoves(legal);
+        for (; i < entries && keyAt(i) == key; i++) {
+            int move = toPacked(legal, moveAt(i));
+            if (move != PackedMove.NONE) found.add(new Entry(move, weightAt(i)));
+        }
+        return found;
+    }
+
+    /**
+     * Sorteia um lance do livro com probabilidade proporcional ao peso
+     * (pesos todos zero: sorteio uniforme). PackedMove.NONE fora do livro.
+     */
+    public int pick(Game game, Random random) {
+        List<Entry> found = lookup(game);
+        if (found.isEmpty()) return PackedMove.NONE;
+        long total = 0;
+        for (Entry e : found) total += e.weight;
+        if (total == 0) return found.get(random.nextInt(found.size())).move;
+        long r = (long) (random.nextDouble() * total);
+        for (Entry e : found) {
+            r -= e.weight;
+            if (r < 0) return e.move;
+        }
+        return found.get(found.size() - 1).move;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // O mapeamento continua válido até ser coletado; fechar só libera o descritor
+        channel.close();
+    }
+
+    // Primeiro índice com chave >= key (comparação sem sinal, como o arquivo é ordenado)
+    private long lowerBound(long key) {
+        long lo = 0, hi = entries;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (Long.compareUnsigned(keyAt(mid), key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private long keyAt(long i) {
+        return segments[(int) (i / SEGMENT_ENTRIES)].getLong((int) (i % SEGMENT_ENTRIES) * ENTRY_SIZE);
+    }
+
+    private int moveAt(long i) {
+        return segments[(int) (i / SEGMENT_ENTRIES)].getShort((int) (i % SEGMENT_ENTRIES) * ENTRY_SIZE + 8) & 0xFFFF;
+    }
+
+    private int weightAt(long i) {
+        return segments[(int) (i / SEGMENT_ENTRIES)].getShort((int) (i % SEGMENT_ENTRIES) * ENTRY_SIZE + 10) & 0xFFFF;
+    }
+
+    /** Lance legal correspondente ao lance Polyglot, ou PackedMove.NONE. */
+    private static int toPacked(MoveList legal, int bookMove) {
+        for (int i = 0; i < legal.size(); i++) {
+            int m = legal.get(i);
+            if (encode(m) == bookMove) return m;
+        }
+        return PackedMove.NONE;
+    }
+
+    /** Codificação Polyglot de um PackedMove (casa 0 = a8 aqui, a1 no formato). */
+    static int encode(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int flags = PackedMove.flags(move);
+        if (flags == PackedMove.CASTLE_KING) to = from | 7;       // rei "captura" a torre da coluna h
+        else if (flags == PackedMove.CASTLE_QUEEN) to = from & ~7; // ... ou da coluna a
+        int promo = PackedMove.isPromotion(move) ? PackedMove.promotionType(move) : 0; // cavalo = 1 ... dama = 4
+        return (promo << 12) | ((from ^ 56) << 6) | (to ^ 56);
+    }
+}
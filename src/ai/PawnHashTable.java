@@ -0,0 +1,71 @@
+package ai;
+
+import java.util.Arrays;
+import model.board.Board;
+import model.board.PieceSquareTable;
+import model.pieces.Piece;
+
+/**
+ * Cache da avaliação de estrutura de peões, indexado pela chave Zobrist só dos
+ * peões (Board.pawnHash). Irmãos na árvore de busca quase sempre têm os mesmos
+ * peões, então a estrutura é calculada uma vez e lida nas demais folhas.
+ *
+ * Cada entrada guarda a pontuação mg/eg e as máscaras de peões passados.
+ * Uma tabela por linha de busca (não é compartilhada entre threads).
+ */
+final class PawnHashTable {
+
+    private final long[] keys;
+    private final long[] scores;       // mg nos 32 bits altos, eg nos baixos
+    private final long[] passedWhite;
+    private final long[] passedBlack;
+    private final int mask;
+    private final PawnStructure.Result scratch = new PawnStructure.Result();
+
+    private long probes, hits;
+
+    /** Tabela com aproximadamente sizeMb megabytes (32 bytes por entrada). */
+    PawnHashTable(int sizeMb) {
+        long entries = Long.highestOneBit(Math.max(1L, (long) sizeMb * 1024 * 1024 / 32));
+        int n = (int) Math.min(entries, 1 << 24);
+        keys = new long[n];
+        scores = new long[n];
+        passedWhite = new long[n];
+        passedBlack = new long[n];
+        mask = n - 1;
+        // Chave 0 (sem peões) é válida: a entrada vazia precisa de uma chave impossível
+        Arrays.fill(keys, -1L);
+    }
+
+    /** Estrutura de peões + passados com caminho livre, visão das brancas, misturado pela fase. */
+    int evaluate(Board board) {
+        long key = board.pawnHash();
+        int i = (int) key & mask;
+        probes++;
+        if (keys[i] == key) {
+            hits++;
+        } else {
+            PawnStructure.compute(board.bitboard(true, Piece.PAWN), board.bitboard(false, Piece.PAWN), scratch);
+            keys[i] = key;
+            scores[i] = ((long) scratch.mg << 32) | (scratch.eg & 0xFFFFFFFFL);
+            passedWhite[i] = scratch.passedWhite;
+            passedBlack[i] = scratch.passedBlack;
+        }
+        int mg = (int) (scores[i] >> 32);
+        int eg = (int) scores[i];
+        return PieceSquareTable.taper(mg, eg, board.phase())
+                + PawnStructure.passedPathBonus(board, passedWhite[i], passedBlack[i]);
+    }
+
+    long probes() { return probes; }
+    long hits() { return hits; }
+
+    /** Fração das consultas atendidas pela tabela (0..1). */
+    double hitRate() {
+        return probes == 0 ? 0.0 : (double) hits / probes;
+    }
+
+    void resetStats() {
+        probes = hits = 0;
+    }
+}
@@ -0,0 +1,140 @@
+package ai;
+
+import model.board.Attacks;
+import model.board.Board;
+import model.board.PieceSquareTable;
+
+/**
+ * Termos de estrutura de peões: dobrados, isolados, passados e atrasados.
+ *
+ * compute() depende só das casas dos peões — o resultado é guardado pela
+ * PawnHashTable e reaproveitado enquanto a estrutura não muda. Já
+ * passedPathBonus() olha o resto do tabuleiro e é calculado a cada avaliação,
+ * a partir das máscaras de peões passados guardadas na tabela.
+ *
+ * Valores em centipeões, do ponto de vista das brancas (mg = meio-jogo, eg = final).
+ */
+final class PawnStructure {
+
+    private static final int DOUBLED_MG = -10, DOUBLED_EG = -20;
+    private static final int ISOLATED_MG = -10, ISOLATED_EG = -15;
+    private static final int BACKWARD_MG = -8, BACKWARD_EG = -10;
+    // Por fileira relativa (1 = inicial, 6 = a uma casa da promoção)
+    private static final int[] PASSED_MG = {0, 5, 10, 20, 35, 60, 100, 0};
+    private static final int[] PASSED_EG = {0, 10, 20, 40, 70, 120, 200, 0};
+    // Passado com a casa da frente livre (final)
+    private static final int[] FREE_PATH_EG = {0, 2, 4, 8, 15, 25, 40, 0};
+
+    private static final long[] FILE = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    // [0] = brancas (sobem, row--), [1] = pretas; casas estritamente à frente
+    private static final long[][] FRONT = new long[2][64];        // mesma coluna
+    private static final long[][] PASSED_SPAN = new long[2][64];  // coluna e vizinhas
+    // Casas das colunas vizinhas na mesma fileira ou atrás (de onde pode vir apoio)
+    private static final long[][] SUPPORT_SPAN = new long[2][64];
+
+    static {
+        for (int c = 0; c < 8; c++) {
+            for (int r = 0; r < 8; r++) FILE[c] |= 1L << (r * 8 + c);
+        }
+        for (int c = 0; c < 8; c++) {
+            ADJACENT_FILES[c] = (c > 0 ? FILE[c - 1] : 0L) | (c < 7 ? FILE[c + 1] : 0L);
+        }
+        for (int sq = 0; sq < 64; sq++) {
+            int r = sq >>> 3, c = sq & 7;
+            for (int rr = 0; rr < 8; rr++) {
+                long rowMask = 0xFFL << (rr * 8);
+                if (rr < r) {
+                    FRONT[0][sq] |= FILE[c] & rowMask;
+                    PASSED_SPAN[0][sq] |= (FILE[c] | ADJACENT_FILES[c]) & rowMask;
+                }
+                if (rr > r) {
+                    FRONT[1][sq] |= FILE[c] & rowMask;
+                    PASSED_SPAN[1][sq] |= (FILE[c] | ADJACENT_FILES[c]) & rowMask;
+                }
+                if (rr >= r) SUPPORT_SPAN[0][sq] |= ADJACENT_FILES[c] & rowMask;
+                if (rr <= r) SUPPORT_SPAN[1][sq] |= ADJACENT_FILES[c] & rowMask;
+            }
+        }
+    }
+
+    private PawnStructure() { /* utilitário */ }
+
+    /** Resultado de compute(): pontuação mg/eg e peões passados de cada cor. */
+    static final class Result {
+        int mg, eg;
+        long passedWhite, passedBlack;
+    }
+
+    /** Avalia a estrutura formada por whitePawns e blackPawns. */
+    static void compute(long whitePawns, long blackPawns, Result out) {
+        out.mg = out.eg = 0;
+        out.passedWhite = out.passedBlack = 0L;
+        side(whitePawns, blackPawns, true, out);
+        side(blackPawns, whitePawns, false, out);
+    }
+
+    private static void side(long own, long enemy, boolean white, Result out) {
+        int us = white ? 0 : 1;
+        int sign = white ? 1 : -1;
+        int mg = 0, eg = 0;
+
+        // Dobrados: cada peão a mais na mesma coluna
+        for (int c = 0; c < 8; c++) {
+            int n = Long.bitCount(own & FILE[c]);
+            if (n > 1) {
+                mg += DOUBLED_MG * (n - 1);
+                eg += DOUBLED_EG * (n - 1);
+            }
+        }
+
+        long pawns = own;
+        while (pawns != 0) {
+            int sq = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            int c = sq & 7;
+            int relRank = white ? 7 - (sq >>> 3) : sq >>> 3;
+
+            boolean isolated = (own & ADJACENT_FILES[c]) == 0;
+            if (isolated) {
+                mg += ISOLATED_MG;
+                eg += ISOLATED_EG;
+            }
+
+            // Passado: nenhum peão inimigo à frente na coluna nem nas vizinhas
+            // (o mais atrasado dos dobrados não conta: o da frente já é o passado)
+            if ((enemy & PASSED_SPAN[us][sq]) == 0 && (own & FRONT[us][sq]) == 0) {
+                mg += PASSED_MG[relRank];
+                eg += PASSED_EG[relRank];
+                if (white) out.passedWhite |= 1L << sq;
+                else out.passedBlack |= 1L << sq;
+            } else if (!isolated && (own & SUPPORT_SPAN[us][sq]) == 0) {
+                // Atrasado: nenhum vizinho pode apoiá-lo e a casa de avanço é atacada por peão
+                int stop = white ? sq - 8 : sq + 8;
+                if (stop >= 0 && stop < 64 && (Attacks.pawn(white, stop) & enemy) != 0) {
+                    mg += BACKWARD_MG;
+                    eg += BACKWARD_EG;
+                }
+            }
+        }
+        out.mg += sign * mg;
+        out.eg += sign * eg;
+    }
+
+    /** Bônus (visão das brancas, já misturado pela fase) para passados com a casa da frente livre. */
+    static int passedPathBonus(Board board, long passedWhite, long passedBlack) {
+        long occ = board.occupied();
+        int eg = 0;
+        while (passedWhite != 0) {
+            int sq = Long.numberOfTrailingZeros(passedWhite);
+            passedWhite &= passedWhite - 1;
+            if ((occ & (1L << (sq - 8))) == 0) eg += FREE_PATH_EG[7 - (sq >>> 3)];
+        }
+        while (passedBlack != 0) {
+            int sq = Long.numberOfTrailingZeros(passedBlack);
+            passedBlack &= passedBlack - 1;
+            if ((occ & (1L << (sq + 8))) == 0) eg -= FREE_PATH_EG[sq >>> 3];
+        }
+        return PieceSquareTable.taper(0, eg, board.phase());
+    }
+}
@@ -0,0 +1,48 @@
+package ai;
+
+/**
+ * Técnicas seletivas da busca do IANivel3, ligadas e desligadas uma a uma
+ * (IANivel3.setPruning). Cada uma tem um contador próprio por lance
+ * (IANivel3.lastPruningCount); PruningBenchmark mede o efeito de cada uma.
+ *
+ * Lance nulo e futilidades não valem em nós de variante principal (janela aberta)
+ * nem em xeque, onde um erro mudaria o lance escolhido; a redução de lances tardios
+ * vale também na variante principal, mas nunca em xeque nem para lances que dão xeque.
+ */
+public enum Pruning {
+
+    /**
+     * Lance nulo: se mesmo passando a vez o lado a mover continua acima de beta,
+     * corta o nó com uma busca reduzida. Desligado sem peças além de peões
+     * (zugzwang) e logo após outro lance nulo. Conta os cortes.
+     */
+    NULL_MOVE,
+
+    /**
+     * Redução de lances tardios: lances quietos ordenados pelo histórico (depois do
+     * lance da tabela, capturas e killers) são buscados com menos profundidade e só
+     * refeitos por inteiro se superarem alfa. Conta os lances reduzidos.
+     */
+    LATE_MOVE_REDUCTIONS,
+
+    /**
+     * Poda de futilidade: perto das folhas, com a avaliação estática abaixo de alfa
+     * por mais que a margem, pula lances quietos que não dão xeque. Conta os lances pulados.
+     */
+    FUTILITY,
+
+    /**
+     * Futilidade reversa: perto das folhas, com a avaliação estática acima de beta
+     * por mais que a margem, devolve a avaliação sem buscar. Conta os cortes.
+     */
+    REVERSE_FUTILITY,
+
+    /** Extensão de xeque: o nó em xeque é buscado um ply mais fundo. Conta as extensões. */
+    CHECK_EXTENSIONS,
+
+    /**
+     * Na quiescência (fora de xeque), pula capturas que perdem material pela troca
+     * estática (Board.see). Conta as capturas puladas.
+     */
+    LOSING_CAPTURES
+}
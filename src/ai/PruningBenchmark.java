@@ -0,0 +1,72 @@
+package ai;
+
+import controller.Game;
+
+/**
+ * Quanto cada técnica seletiva (Pruning) economiza: busca as posições de
+ * SearchBenchmark à mesma profundidade com todas as técnicas, sem nenhuma e
+ * com cada uma desligada, e mostra tempo, nós e quantas vezes cada técnica agiu.
+ *
+ * Cada medição usa uma IA nova (tabela de transposição vazia) e semente fixa.
+ *
+ * Uso: java ai.PruningBenchmark [--depth D] [--hash MB]
+ */
+public final class PruningBenchmark {
+
+    private PruningBenchmark() { /* utilitário */ }
+
+    public static void main(String[] args) {
+        int depth = 7, hashMb = 64;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--hash" -> hashMb = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+
+        // Aquecimento do JIT (sem medir)
+        for (String fen : SearchBenchmark.POSITIONS) {
+            new IANivel3(hashMb).makeMove(Game.fromFen(fen), SearchLimits.depth(Math.min(depth, 6)));
+        }
+
+        System.out.printf("Profundidade %d, %d posições, hash %d MB%n", depth, SearchBenchmark.POSITIONS.length, hashMb);
+        System.out.printf("%-28s %9s %14s", "configuração", "tempo", "nós");
+        for (Pruning p : Pruning.values()) System.out.printf(" %12s", abbreviation(p));
+        System.out.println();
+
+        run("todas", depth, hashMb, null, true);
+        run("nenhuma", depth, hashMb, null, false);
+        for (Pruning p : Pruning.values()) run("sem " + p, depth, hashMb, p, true);
+    }
+
+    // Todas as técnicas = enabled, exceto except (se não for null), que fica com o oposto
+    private static void run(String label, int depth, int hashMb, Pruning except, boolean enabled) {
+        long nodes = 0, nanos = 0;
+        long[] counts = new long[Pruning.values().length];
+        for (String fen : SearchBenchmark.POSITIONS) {
+            IANivel3 ia = new IANivel3(hashMb);
+            ia.setSeed(1);
+            for (Pruning p : Pruning.values()) ia.setPruning(p, enabled != (p == except));
+            long t0 = System.nanoTime();
+            ia.makeMove(Game.fromFen(fen), SearchLimits.depth(depth));
+            nanos += System.nanoTime() - t0;
+            nodes += ia.lastNodes();
+            for (Pruning p : Pruning.values()) counts[p.ordinal()] += ia.lastPruningCount(p);
+        }
+        System.out.printf("%-28s %8.2fs %,14d", label, nanos / 1e9, nodes);
+        for (long c : counts) System.out.printf(" %,12d", c);
+        System.out.println();
+    }
+
+    private static String abbreviation(Pruning p) {
+        return switch (p) {
+            case NULL_MOVE -> "nulo";
+            case LATE_MOVE_REDUCTIONS -> "lmr";
+            case FUTILITY -> "futil.";
+            case REVERSE_FUTILITY -> "futil. rev.";
+            case CHECK_EXTENSIONS -> "ext. xeque";
+            case LOSING_CAPTURES -> "capt. ruins";
+        };
+    }
+}
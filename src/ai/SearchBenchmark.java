@@ -0,0 +1,69 @@
+package ai;
+
+import controller.Game;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Relatório de escalabilidade do Lazy SMP: tempo até a profundidade e nós/s
+ * para 1, 2, 4... threads, sobre um conjunto fixo de posições.
+ *
+ * Cada medição usa uma IA nova (tabela de transposição vazia) e semente fixa.
+ *
+ * Uso: java ai.SearchBenchmark [--depth D] [--threads MAX] [--hash MB]
+ */
+public final class SearchBenchmark {
+
+    static final String[] POSITIONS = {
+        "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+        "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP3PPP/R2QKB1R w KQ - 0 8",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+    };
+
+    private SearchBenchmark() { /* utilitário */ }
+
+    public static void main(String[] args) {
+        int depth = 7, maxThreads = Runtime.getRuntime().availableProcessors(), hashMb = 64;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--depth" -> depth = Integer.parseInt(args[++i]);
+                case "--threads" -> maxThreads = Integer.parseInt(args[++i]);
+                case "--hash" -> hashMb = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+
+        List<Integer> counts = new ArrayList<>();
+        for (int t = 1; t < maxThreads; t *= 2) counts.add(t);
+        counts.add(maxThreads);
+
+        // Aquecimento do JIT (sem medir), para a primeira linha não sair penalizada
+        for (String fen : POSITIONS) new IANivel3(hashMb).makeMove(Game.fromFen(fen), SearchLimits.depth(depth));
+
+        System.out.printf("Profundidade %d, %d posições, hash %d MB%n", depth, POSITIONS.length, hashMb);
+        System.out.printf("%7s %10s %14s %14s %9s %9s%n", "threads", "tempo", "nós", "nós/s", "speedup", "nps x");
+        double baseSecs = 0, baseNps = 0;
+        for (int threads : counts) {
+            long nodes = 0, nanos = 0;
+            for (String fen : POSITIONS) {
+                IANivel3 ia = new IANivel3(hashMb);
+                ia.setThreads(threads);
+                ia.setSeed(1);
+                long t0 = System.nanoTime();
+                ia.makeMove(Game.fromFen(fen), SearchLimits.depth(depth));
+                nanos += System.nanoTime() - t0;
+                nodes += ia.lastNodes();
+            }
+            double secs = nanos / 1e9;
+            double nps = nodes / secs;
+            if (threads == 1) {
+                baseSecs = secs;
+                baseNps = nps;
+            }
+            System.out.printf("%7d %9.2fs %,14d %,14.0f %8.2fx %8.2fx%n",
+                    threads, secs, nodes, nps, baseSecs / secs, nps / baseNps);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ai;
+
+import java.util.List;
+import model.board.Move;
+
+/**
+ * Resultado de uma iteração completa da busca (imutável).
+ *
+ * score é do ponto de vista do lado a mover, em centipeões; valores de mate são
+ * reconhecidos por isMate() e convertidos em lances por mateInMoves().
+ */
+public final class SearchInfo {
+
+    private final int depth;
+    private final int score;
+    private final List<Move> pv;
+    private final long nodes;
+    private final long elapsedMillis;
+
+    SearchInfo(int depth, int score, List<Move> pv, long nodes, long elapsedMillis) {
+        this.depth = depth;
+        this.score = score;
+        this.pv = List.copyOf(pv);
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int depth() { return depth; }
+    public int score() { return score; }
+
+    /** Variante principal: o melhor lance seguido da resposta esperada, e assim por diante. */
+    public List<Move> pv() { return pv; }
+
+    /** Nós visitados até aqui no lance (todas as threads). */
+    public long nodes() { return nodes; }
+
+    public long elapsedMillis() { return elapsedMillis; }
+
+    public boolean isMate() { return Math.abs(score) >= Searcher.MATE_BOUND; }
+
+    /** Mate em N lances: positivo se o lado a mover aplica, negativo se sofre; 0 sem mate. */
+    public int mateInMoves() {
+        if (!isMate()) return 0;
+        int plies = Searcher.MATE_SCORE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies + 1) / 2;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth).append(" score ");
+        if (isMate()) sb.append("mate ").append(mateInMoves());
+        else sb.append("cp ").append(score);
+        sb.append(" nodes ").append(nodes).append(" time ").append(elapsedMillis).append(" pv");
+        for (Move m : pv) sb.append(' ').append(m);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package ai;
+
+/**
+ * Limites de uma busca: profundidade máxima, tempo de relógio por lance e/ou
+ * número de nós. Zero em tempo ou nós significa "sem limite".
+ *
+ * Objeto imutável; use as fábricas e os métodos with* para combinar limites,
+ * ex. SearchLimits.time(500).withDepth(8).
+ */
+public final class SearchLimits {
+
+    /** Maior profundidade aceita pela busca (tamanho das pilhas por ply). */
+    public static final int MAX_DEPTH = 64;
+
+    /** Limite padrão do nível difícil: até 1 segundo por lance. */
+    public static final SearchLimits DEFAULT = time(1000);
+
+    private final int maxDepth;
+    private final long timeMillis;
+    private final long nodes;
+
+    private SearchLimits(int maxDepth, long timeMillis, long nodes) {
+        if (maxDepth < 1) throw new IllegalArgumentException("Profundidade inválida: " + maxDepth);
+        if (timeMillis < 0 || nodes < 0) throw new IllegalArgumentException("Limite negativo");
+        this.maxDepth = Math.min(maxDepth, MAX_DEPTH);
+        this.timeMillis = timeMillis;
+        this.nodes = nodes;
+    }
+
+    /** Profundidade fixa, sem limite de tempo. */
+    public static SearchLimits depth(int depth) { return new SearchLimits(depth, 0, 0); }
+
+    /** Até timeMillis milissegundos de relógio por lance. */
+    public static SearchLimits time(long timeMillis) { return new SearchLimits(MAX_DEPTH, timeMillis, 0); }
+
+    /** Até "nodes" nós visitados por lance. */
+    public static SearchLimits nodes(long nodes) { return new SearchLimits(MAX_DEPTH, 0, nodes); }
+
+    public SearchLimits withDepth(int depth) { return new SearchLimits(depth, timeMillis, nodes); }
+    public SearchLimits withTime(long millis) { return new SearchLimits(maxDepth, millis, nodes); }
+    public SearchLimits withNodes(long n) { return new SearchLimits(maxDepth, timeMillis, n); }
+
+    public int maxDepth() { return maxDepth; }
+    public long timeMillis() { return timeMillis; }
+    public long nodes() { return nodes; }
+    public boolean hasTimeLimit() { return timeMillis > 0; }
+    public boolean hasNodeLimit() { return nodes > 0; }
+
+    @Override
+    public String toString() {
+        return "SearchLimits[depth=" + maxDepth + ", time=" + timeMillis + "ms, nodes=" + nodes + "]";
+    }
+}
@@ -0,0 +1,10 @@
+package ai;
+
+/**
+ * Recebe o andamento da busca: chamado ao fim de cada iteração completa do
+ * aprofundamento iterativo, na thread da busca (a GUI deve repassar para a EDT).
+ */
+@FunctionalInterface
+public interface SearchListener {
+    void onIteration(SearchInfo info);
+}
@@ -0,0 +1,614 @@
+package ai;
+
+import controller.Game;
+import model.board.Board;
+import model.board.Move;
+import model.board.MoveList;
+import model.board.PackedMove;
+import model.pieces.Piece;
+import model.tablebase.Tablebase;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Uma linha de busca alfa-beta (negamax + tabela de transposição + quiescência)
+ * sobre a sua própria cópia do jogo.
+ *
+ * Todo o estado mutável da busca (pilhas por ply, killers/histórico, contadores)
+ * fica aqui, para que várias instâncias rodem em paralelo (Lazy SMP): elas só
+ * compartilham a TranspositionTable (sem locks) e o sinal de parada.
+ */
+final class Searcher {
+
+    static final int MATE_SCORE = 1_000_000; // acima de qualquer soma de material
+    static final int MATE_BOUND = MATE_SCORE - 1000; // |valor| acima disto = mate em N
+    static final int INFINITY = MATE_SCORE + 1;
+    private static final int CHECK_INTERVAL = 1024;   // nós entre consultas ao relógio (potência de 2)
+    // Plies além da profundidade nominal reservados à quiescência
+    private static final int MAX_PLY = SearchLimits.MAX_DEPTH + 32;
+    private static final int DELTA_MARGIN = 200; // folga da poda delta (centipeões)
+    // Janela de aspiração: meia largura inicial (centipeões) e profundidade a partir da qual é usada
+    private static final int ASPIRATION_WINDOW = 25;
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+
+    // Busca seletiva (ver Pruning): profundidades máximas/mínimas e margens em centipeões
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_REDUCTION = 2;     // + 1 a cada 6 plies de profundidade
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_INDEX = 3;           // os primeiros lances nunca são reduzidos
+    private static final int[] FUTILITY_MARGIN = {0, 150, 300}; // por profundidade restante
+    private static final int REVERSE_FUTILITY_MAX_DEPTH = 3;
+    private static final int REVERSE_FUTILITY_MARGIN = 120; // por ply de profundidade restante
+
+    private static final int NULL_MOVE = Pruning.NULL_MOVE.ordinal();
+    private static final int LMR = Pruning.LATE_MOVE_REDUCTIONS.ordinal();
+    private static final int FUTILITY = Pruning.FUTILITY.ordinal();
+    private static final int REVERSE_FUTILITY = Pruning.REVERSE_FUTILITY.ordinal();
+    private static final int CHECK_EXTENSION = Pruning.CHECK_EXTENSIONS.ordinal();
+    private static final int LOSING_CAPTURES = Pruning.LOSING_CAPTURES.ordinal();
+
+    // Posições já buscadas (chave Zobrist -> valor, limite, profundidade e melhor lance)
+    private final TranspositionTable tt;
+    // Ligado por quem coordena a busca: todas as linhas param na próxima consulta
+    private final AtomicBoolean stopSignal;
+    // Cancelamento pedido de fora (busca assíncrona); só a linha principal consulta
+    private CancellationToken cancellation;
+
+    // Uma lista de lances reutilizável por ply (sem alocação durante a busca)
+    private final MoveList[] plyMoves = new MoveList[MAX_PLY + 1];
+    private final MoveList rootMoves = new MoveList();
+
+    // Variante principal triangular: pvTable[ply] é a melhor linha a partir do ply
+    // (pvLength[ply] lances), montada com o lance do nó + a linha do filho
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    // Variante da última iteração completa (pvTable[0] muda durante a seguinte)
+    private final int[] rootPv = new int[MAX_PLY + 1];
+    private int rootPvLength;
+
+    // Killers, histórico e estatísticas de corte
+    private final MoveOrderer orderer = new MoveOrderer(MAX_PLY + 1);
+    // Lances da partida na raiz da busca anterior (-1 = nenhuma): alinha os killers
+    private int lastRootPly = -1;
+
+    // Estrutura de peões já avaliada (chave só dos peões); uma por linha, sem sincronização
+    private PawnHashTable pawns = new PawnHashTable(1);
+    private int pawnHashMb = 1;
+
+    /** Na quiescência, também tenta lances quietos que dão xeque (só no primeiro nível). */
+    boolean quiescenceChecks = false;
+
+    /** Sorteio entre lances empatados na raiz (null = fica com o primeiro, como nas linhas auxiliares). */
+    Random tieBreak;
+
+    /** Tabelas de finais consultadas a cada nó com poucas peças (null = sem tabelas). */
+    Tablebase tablebase;
+    private final Tablebase.Scratch tbScratch = new Tablebase.Scratch();
+
+    // Técnicas seletivas ligadas (índice = Pruning.ordinal()) e quantas vezes agiram
+    private final boolean[] pruning = new boolean[Pruning.values().length];
+    private final long[] pruningCounts = new long[Pruning.values().length];
+    // nullMoveAt[ply]: o lance que leva ao ply + 1 é nulo (sem dois nulos seguidos)
+    private final boolean[] nullMoveAt = new boolean[MAX_PLY + 1];
+
+    // Estado da busca em andamento
+    private Game game;
+    private long nodes;
+    private long qnodes;        // nós da quiescência (também contados em nodes)
+    private long tbHits;        // nós resolvidos pelas tabelas de finais
+    private long nodeLimit;     // 0 = sem limite
+    private long hardDeadline = Long.MAX_VALUE; // System.nanoTime() em que a busca é interrompida
+    private boolean stopped;
+    private int rootScore;      // melhor valor da última iteração da raiz (lado a mover)
+    private int completedDepth; // profundidade da última iteração completa desta busca
+    private long researches;    // novas buscas de janela cheia após a janela nula (PVS)
+    private long aspirationFails; // iterações da raiz repetidas com a janela alargada
+
+    Searcher(TranspositionTable tt, AtomicBoolean stopSignal) {
+        this.tt = tt;
+        this.stopSignal = stopSignal;
+        for (int i = 0; i < plyMoves.length; i++) plyMoves[i] = new MoveList();
+    }
+
+    /** Prepara uma nova busca sobre root (que passa a pertencer a esta linha). */
+    void start(Game root) {
+        game = root;
+        root.generateLegalMoves(rootMoves);
+        nodes = 0;
+        qnodes = 0;
+        tbHits = 0;
+        stopped = false;
+        hardDeadline = Long.MAX_VALUE;
+        nodeLimit = 0;
+        cancellation = null;
+        completedDepth = 0;
+        rootPvLength = 0;
+        researches = 0;
+        aspirationFails = 0;
+        Arrays.fill(pruningCounts, 0);
+        int rootPly = root.history().size();
+        orderer.newSearch(lastRootPly >= 0 ? rootPly - lastRootPly : -1);
+        lastRootPly = rootPly;
+        pawns.resetStats();
+    }
+
+    /** Esquece o que foi aprendido em buscas anteriores (killers e histórico). */
+    void clearHeuristics() {
+        orderer.clear();
+        lastRootPly = -1;
+    }
+
+    /** Tamanho da tabela de peões; realoca (e esvazia) só se mudar. */
+    void setPawnHashMb(int mb) {
+        if (mb == pawnHashMb) return;
+        pawns = new PawnHashTable(mb);
+        pawnHashMb = mb;
+    }
+
+    /** Limites desta linha: instante de parada (System.nanoTime) e nós (0 = sem limite). */
+    void setLimits(long hardDeadline, long nodeLimit) {
+        this.hardDeadline = hardDeadline;
+        this.nodeLimit = nodeLimit;
+    }
+
+    /** Token conferido junto com o relógio (null = sem cancelamento externo). */
+    void setCancellation(CancellationToken token) {
+        this.cancellation = token;
+    }
+
+    Game game() { return game; }
+    MoveList rootMoves() { return rootMoves; }
+    boolean isStopped() { return stopped; }
+    int rootScore() { return rootScore; }
+    long nodes() { return nodes; }
+    long qnodes() { return qnodes; }
+    long tbHits() { return tbHits; }
+    double firstMoveCutoffRate() { return orderer.firstMoveCutoffRate(); }
+    double pawnHashHitRate() { return pawns.hitRate(); }
+    long researches() { return researches; }
+    long pruningCount(Pruning p) { return pruningCounts[p.ordinal()]; }
+
+    /** Liga só as técnicas seletivas de enabled. */
+    void setPruning(Set<Pruning> enabled) {
+        for (Pruning p : Pruning.values()) pruning[p.ordinal()] = enabled.contains(p);
+    }
+    long aspirationFails() { return aspirationFails; }
+
+    /**
+     * Uma iteração completa à profundidade depth. Devolve o melhor lance (sorteado
+     * entre os empatados, ver tieBreak), que é também o primeiro da variante principal;
+     * se a busca for interrompida o resultado deve ser descartado.
+     * O melhor lance passa para a frente da lista (a próxima iteração começa por ele).
+     *
+     * Janela de aspiração: a partir de ASPIRATION_MIN_DEPTH a raiz é buscada só em
+     * volta do valor da iteração anterior. Se o valor cair fora, a iteração é repetida
+     * com o lado que falhou alargado (o dobro a cada falha, depois infinito).
+     */
+    int iterate(int depth) {
+        int alpha = -INFINITY, beta = INFINITY;
+        int delta = ASPIRATION_WINDOW;
+        if (depth >= ASPIRATION_MIN_DEPTH && completedDepth == depth - 1 && Math.abs(rootScore) < MATE_BOUND) {
+            alpha = rootScore - delta;
+            beta = rootScore + delta;
+        }
+        while (true) {
+            int best = searchRoot(game, rootMoves, depth, alpha, beta);
+            if (stopped) return best;
+            if (rootScore <= alpha) {
+                aspirationFails++;
+                delta *= 2;
+                alpha = delta > MATE_SCORE / 4 ? -INFINITY : Math.max(-INFINITY, rootScore - delta);
+            } else if (rootScore >= beta) {
+                aspirationFails++;
+                delta *= 2;
+                beta = delta > MATE_SCORE / 4 ? INFINITY : Math.min(INFINITY, rootScore + delta);
+            } else {
+                completedDepth = depth;
+                moveToFront(rootMoves, best);
+                return best;
+            }
+        }
+    }
+
+    /**
+     * Linha auxiliar do Lazy SMP: aprofunda sozinha até receber o sinal de parada,
+     * enchendo a tabela compartilhada. Linhas ímpares começam um ply à frente para
+     * que as linhas não busquem sempre a mesma profundidade ao mesmo tempo.
+     */
+    void runHelper(int id, int maxDepth) {
+        for (int depth = 1 + (id & 1); depth <= maxDepth && !stopped; depth++) {
+            iterate(depth);
+        }
+    }
+
+    /**
+     * Uma iteração na raiz com a janela (alpha, beta). Devolve o melhor lance; entre
+     * lances de mesmo valor sorteia um (tieBreak), e a variante principal é a dele.
+     * Cada lance depois do primeiro só precisa "empatar ou superar" o melhor até aqui:
+     * é testado com janela nula e só os que passam no teste são buscados de novo para
+     * obter o valor exato (e a variante).
+     * rootScore <= alpha ou >= beta indica falha da janela (valor é só um limite).
+     */
+    private int searchRoot(Game root, MoveList rootMoves, int depth, int alpha, int beta) {
+        int bestScore = -INFINITY;
+        int bestMove = PackedMove.NONE;
+        int ties = 0; // lances com o melhor valor até aqui
+        pvLength[0] = 0;
+
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            int floor = ties == 0 ? alpha : Math.max(alpha, bestScore - 1);
+            root.makeMove(move);
+            int score;
+            if (ties == 0) {
+                score = -negamax(root, depth - 1, 1, -beta, -floor);
+            } else {
+                score = -negamax(root, depth - 1, 1, -floor - 1, -floor);
+                if (score > floor && score < beta && !stopped) {
+                    researches++;
+                    score = -negamax(root, depth - 1, 1, -beta, -floor);
+                }
+            }
+            root.unmakeMove();
+            if (stopped) return bestMove;
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                ties = 1;
+                updatePv(0, move);
+                if (score >= beta) break; // falha alta: a iteração será repetida
+            } else if (score == bestScore) {
+                // Sorteio uniforme sem guardar a lista: o k-ésimo empatado fica com chance 1/k
+                ties++;
+                if (tieBreak != null && tieBreak.nextInt(ties) == 0) {
+                    bestMove = move;
+                    updatePv(0, move);
+                }
+            }
+        }
+        rootScore = bestScore;
+        if (bestScore > alpha && bestScore < beta) {
+            tt.store(root.zobristKey(), bestMove, bestScore, depth, TranspositionTable.EXACT);
+            rootPvLength = pvLength[0];
+            System.arraycopy(pvTable[0], 0, rootPv, 0, rootPvLength);
+        }
+        return bestMove;
+    }
+
+    /**
+     * Alfa-beta em forma negamax: o valor é sempre do ponto de vista do lado a mover.
+     * Consulta a tabela de transposição antes de gerar lances e grava o resultado
+     * com o tipo de limite (exato, inferior após corte, superior se nada superou alfa).
+     *
+     * Busca de variante principal (PVS): só o primeiro lance (o mais provável de ser
+     * o melhor, pela ordenação) usa a janela inteira; os demais são testados com
+     * janela nula (alpha, alpha + 1), bem mais barata, e só buscados de novo com a
+     * janela inteira se superarem alfa.
+     *
+     * Busca seletiva (cada técnica liga e desliga em Pruning): extensão de xeque,
+     * futilidade reversa e lance nulo antes de gerar lances; futilidade e redução de
+     * lances tardios dentro do laço.
+     */
+    private int negamax(Game game, int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+        if ((++nodes & (CHECK_INTERVAL - 1)) == 0) checkLimits();
+        if (stopped) {
+            return 0; // valor descartado: a iteração inteira será ignorada
+        }
+
+        // Repetição (já basta uma), 50 lances ou material insuficiente: empate, não busca o ciclo
+        if (game.isDrawByRule()) {
+            return 0;
+        }
+
+        // Final com poucas peças: a tabela dá o valor exato (mate em N ou empate)
+        int tbCode = probeTablebase(game);
+        if (tbCode != Tablebase.NOT_FOUND) {
+            tbHits++;
+            int plies = ply + Tablebase.plies(tbCode);
+            if (Tablebase.isWin(tbCode)) return MATE_SCORE - plies;
+            if (Tablebase.isLoss(tbCode)) return -(MATE_SCORE - plies);
+            return 0;
+        }
+
+        boolean white = game.whiteToMove();
+        Board board = game.board();
+        boolean inCheck = board.isAttacked(board.kingSquare(white), !white);
+        // ply + depth <= MAX_DEPTH: as extensões não estouram as pilhas por ply
+        if (inCheck && pruning[CHECK_EXTENSION] && ply + depth < SearchLimits.MAX_DEPTH) {
+            pruningCounts[CHECK_EXTENSION]++;
+            depth++;
+        }
+
+        long key = game.zobristKey();
+        int ttMove = 0;
+        long entry = tt.probe(key);
+        if (entry != TranspositionTable.NONE) {
+            ttMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTT(TranspositionTable.score(entry), ply);
+                switch (TranspositionTable.bound(entry)) {
+                    case TranspositionTable.EXACT -> { return score; }
+                    case TranspositionTable.LOWER -> { if (score >= beta) return score; }
+                    case TranspositionTable.UPPER -> { if (score <= alpha) return score; }
+                    default -> { }
+                }
+            }
+        }
+
+        if (depth == 0) {
+            return quiescence(game, ply, alpha, beta, 0);
+        }
+
+        boolean futile = false;
+        int futilityValue = -INFINITY; // limite superior dos lances pulados pela futilidade
+        if (beta - alpha == 1 && !inCheck) {
+            int staticEval = evaluate(game);
+            if (pruning[REVERSE_FUTILITY] && depth <= REVERSE_FUTILITY_MAX_DEPTH && Math.abs(beta) < MATE_BOUND
+                    && staticEval - REVERSE_FUTILITY_MARGIN * depth >= beta) {
+                pruningCounts[REVERSE_FUTILITY]++;
+                return staticEval;
+            }
+            // Zugzwang: só com peças além de peões passar a vez é certamente pior que jogar
+            if (pruning[NULL_MOVE] && depth >= NULL_MOVE_MIN_DEPTH && staticEval >= beta
+                    && Math.abs(beta) < MATE_BOUND && !nullMoveAt[ply - 1] && hasPieces(board, white)) {
+                int r = NULL_MOVE_REDUCTION + depth / 6;
+                nullMoveAt[ply] = true;
+                game.makeNullMove();
+                int score = -negamax(game, Math.max(0, depth - 1 - r), ply + 1, -beta, -beta + 1);
+                game.unmakeNullMove();
+                nullMoveAt[ply] = false;
+                if (stopped) return 0;
+                if (score >= beta) {
+                    pruningCounts[NULL_MOVE]++;
+                    return score >= MATE_BOUND ? beta : score; // mate sem lance não é prova
+                }
+            }
+            futile = pruning[FUTILITY] && depth < FUTILITY_MARGIN.length && Math.abs(alpha) < MATE_BOUND
+                    && staticEval + FUTILITY_MARGIN[depth] <= alpha;
+            if (futile) futilityValue = staticEval + FUTILITY_MARGIN[depth];
+        }
+
+        MoveList moves = plyMoves[ply];
+        game.generateLegalMoves(moves);
+        if (moves.isEmpty()) {
+            // Fim de jogo: mate (quanto mais cedo, melhor para quem aplica) ou afogamento
+            return inCheck ? -(MATE_SCORE - ply) : 0;
+        }
+        orderer.score(board, moves, ply, ttMove, white);
+
+        int alphaOrig = alpha;
+        int best = -INFINITY;
+        int bestMove = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = orderer.pickNext(moves, ply, i);
+            boolean quiet = !PackedMove.isCapture(move) && !PackedMove.isPromotion(move);
+            boolean late = pruning[LMR] && i >= LMR_MIN_INDEX && depth >= LMR_MIN_DEPTH && quiet && !inCheck
+                    && orderer.isHistoryMove(ply, i);
+            game.makeMove(move);
+            boolean givesCheck = (late || (futile && quiet && i > 0))
+                    && board.isAttacked(board.kingSquare(!white), white);
+            if (futile && quiet && i > 0 && !givesCheck) {
+                game.unmakeMove();
+                pruningCounts[FUTILITY]++;
+                // O lance pulado pode valer até futilityValue: o limite gravado na tabela não fica abaixo disso
+                if (futilityValue > best) best = futilityValue;
+                continue;
+            }
+            int score;
+            if (i == 0) {
+                score = -negamax(game, depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                int reduction = 0;
+                if (late && !givesCheck) {
+                    pruningCounts[LMR]++;
+                    reduction = i >= 2 * LMR_MIN_INDEX && depth >= 6 ? 2 : 1;
+                }
+                score = -negamax(game, depth - 1 - reduction, ply + 1, -alpha - 1, -alpha);
+                if (reduction > 0 && score > alpha && !stopped) {
+                    score = -negamax(game, depth - 1, ply + 1, -alpha - 1, -alpha);
+                }
+                if (score > alpha && score < beta && !stopped) {
+                    researches++;
+                    score = -negamax(game, depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            game.unmakeMove();
+            if (stopped) return 0;
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                }
+                if (alpha >= beta) {
+                    orderer.onCutoff(move, ply, depth, white, i);
+                    break; // Poda
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > alphaOrig ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        tt.store(key, bound == TranspositionTable.UPPER ? 0 : bestMove, scoreToTT(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Quiescência: nas folhas, continua só com capturas (e promoções) até a posição
+     * ficar "quieta", para não avaliar no meio de uma troca (efeito horizonte).
+     * - stand-pat: o lado a mover pode recusar as capturas e ficar com a avaliação;
+     * - poda delta: ignora capturas que nem com a peça capturada + margem alcançam alfa;
+     * - capturas que perdem material pela troca estática (SEE) não são buscadas;
+     * - em xeque não há stand-pat: buscam-se todas as evasões (mate detectado aqui).
+     */
+    private int quiescence(Game game, int ply, int alpha, int beta, int qply) {
+        if ((++nodes & (CHECK_INTERVAL - 1)) == 0) checkLimits();
+        qnodes++;
+        if (stopped) return 0;
+
+        boolean white = game.whiteToMove();
+        Board board = game.board();
+        boolean inCheck = board.isAttacked(board.kingSquare(white), !white);
+        if (ply >= MAX_PLY) return inCheck ? 0 : evaluate(game);
+
+        MoveList moves = plyMoves[ply];
+        int standPat = 0;
+        if (inCheck) {
+            game.generateLegalMoves(moves);
+            if (moves.isEmpty()) return -(MATE_SCORE - ply);
+        } else {
+            standPat = evaluate(game);
+            if (standPat >= beta) return standPat;
+            // Nem ganhar uma dama recupera alfa: nenhuma captura adianta
+            if (standPat + IAUtils.getPieceValue(Piece.QUEEN) + DELTA_MARGIN < alpha) return standPat;
+            if (standPat > alpha) alpha = standPat;
+
+            if (quiescenceChecks && qply == 0) {
+                game.generateLegalMoves(moves);
+                keepNoisyAndChecks(game, moves);
+            } else {
+                game.generateLegalCaptures(moves);
+            }
+        }
+
+        orderer.score(board, moves, ply, 0, white);
+        int best = inCheck ? -INFINITY : standPat;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = orderer.pickNext(moves, ply, i);
+            if (!inCheck && PackedMove.isCapture(move) && !PackedMove.isPromotion(move)
+                    && standPat + capturedValue(board, move) + DELTA_MARGIN <= alpha) {
+                continue; // poda delta
+            }
+            if (!inCheck && pruning[LOSING_CAPTURES] && orderer.isLosingCapture(ply, i)) {
+                pruningCounts[LOSING_CAPTURES]++;
+                continue;
+            }
+            game.makeMove(move);
+            int score = -quiescence(game, ply + 1, -beta, -alpha, qply + 1);
+            game.unmakeMove();
+            if (stopped) return 0;
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) alpha = score;
+                if (alpha >= beta) break;
+            }
+        }
+        return best;
+    }
+
+    /** true se o lado tem alguma peça além de rei e peões. */
+    private static boolean hasPieces(Board board, boolean white) {
+        return (board.bitboard(white, Piece.KNIGHT) | board.bitboard(white, Piece.BISHOP)
+                | board.bitboard(white, Piece.ROOK) | board.bitboard(white, Piece.QUEEN)) != 0;
+    }
+
+    /** Mantém capturas, promoções e lances quietos que dão xeque. */
+    private static void keepNoisyAndChecks(Game game, MoveList moves) {
+        for (int i = moves.size() - 1; i >= 0; i--) {
+            int m = moves.get(i);
+            if (PackedMove.isCapture(m) || PackedMove.isPromotion(m)) continue;
+            game.makeMove(m);
+            Board b = game.board();
+            boolean check = b.isAttacked(b.kingSquare(game.whiteToMove()), !game.whiteToMove());
+            game.unmakeMove();
+            if (!check) moves.removeAt(i);
+        }
+    }
+
+    private static int capturedValue(Board board, int move) {
+        if (PackedMove.flags(move) == PackedMove.EN_PASSANT) return IAUtils.getPieceValue(Piece.PAWN);
+        Piece victim = board.get(PackedMove.to(move));
+        return victim != null ? IAUtils.getPieceValue(victim) : 0;
+    }
+
+    // Valores de mate são relativos à raiz; na tabela ficam relativos ao nó
+    private static int scoreToTT(int score, int ply) {
+        if (score >= MATE_BOUND) return score + ply;
+        if (score <= -MATE_BOUND) return score - ply;
+        return score;
+    }
+
+    private static int scoreFromTT(int score, int ply) {
+        if (score >= MATE_BOUND) return score - ply;
+        if (score <= -MATE_BOUND) return score + ply;
+        return score;
+    }
+
+    // O lance move passou a ser o melhor do ply: a linha dele é move + a linha do filho
+    private void updatePv(int ply, int move) {
+        int[] line = pvTable[ply];
+        line[0] = move;
+        int childLength = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], 0, line, 1, childLength);
+        pvLength[ply] = childLength + 1;
+    }
+
+    /**
+     * Variante principal da última iteração completa (tabela triangular). Termina
+     * antes da profundidade nominal onde a linha foi resolvida pela tabela de
+     * transposição, pelas tabelas de finais ou por regra de empate.
+     */
+    List<Move> principalVariation() {
+        List<Move> pv = new ArrayList<>();
+        MoveList legal = new MoveList();
+        int made = 0;
+        while (made < rootPvLength) {
+            int move = rootPv[made];
+            game.generateLegalMoves(legal);
+            if (!legal.contains(move)) break;
+            pv.add(game.toMove(move));
+            game.makeMove(move);
+            made++;
+        }
+        for (int i = 0; i < made; i++) game.unmakeMove();
+        return pv;
+    }
+
+    private void checkLimits() {
+        if ((nodeLimit > 0 && nodes >= nodeLimit) || System.nanoTime() >= hardDeadline || stopSignal.get()
+                || (cancellation != null && cancellation.isCancelled())) {
+            stopped = true;
+        }
+    }
+
+    private static void moveToFront(MoveList moves, int move) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i) == move) {
+                for (int j = i; j > 0; j--) moves.set(j, moves.get(j - 1));
+                moves.set(0, move);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Código da tabela de finais para a posição, ou NOT_FOUND (sem tabelas, peças demais,
+     * ou direitos de roque/en passant, que as tabelas não representam).
+     */
+    int probeTablebase(Game game) {
+        if (tablebase == null || Long.bitCount(game.board().occupied()) > Tablebase.MAX_PIECES) {
+            return Tablebase.NOT_FOUND;
+        }
+        if (game.castlingRights() != 0 || game.enPassantColumn() >= 0) return Tablebase.NOT_FOUND;
+        return tablebase.probe(game.board(), game.whiteToMove(), tbScratch);
+    }
+
+    /**
+     * Material + posição (mantidos incrementalmente pelo Board) + estrutura de peões
+     * (da tabela de peões), do ponto de vista do lado a mover.
+     */
+    private int evaluate(Game game) {
+        Board board = game.board();
+        int score = board.materialPst() + pawns.evaluate(board);
+        return game.whiteToMove() ? score : -score;
+    }
+}
@@ -0,0 +1,110 @@
+package ai;
+
+import java.util.Arrays;
+
+/**
+ * Tabela de transposição de tamanho fixo, em dois long[] (sem objetos por entrada).
+ *
+ * Cada entrada guarda, empacotados num long:
+ * - bits 0-15:  melhor lance (PackedMove, 0 = nenhum)
+ * - bits 16-23: profundidade restante da busca que gravou
+ * - bits 24-25: tipo de limite (EXACT, LOWER, UPPER)
+ * - bits 26-31: geração (idade da entrada)
+ * - bits 32-63: valor (int, com sinal)
+ *
+ * Sem locks: o slot de chave guarda (chave ^ dados). Uma escrita concorrente que
+ * misture chave de uma entrada com dados de outra não passa na verificação e é
+ * tratada como "não encontrada" — várias threads podem ler e gravar à vontade.
+ *
+ * Cada índice é um bucket de dois slots: o primeiro só é substituído por buscas
+ * de profundidade maior ou igual (ou entradas de geração antiga); o segundo
+ * é sempre substituído.
+ */
+public final class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER = 2; // valor >= guardado (falhou alto, corte beta)
+    public static final int UPPER = 3; // valor <= guardado (falhou baixo)
+
+    /** Resultado de probe() quando a posição não está na tabela. */
+    public static final long NONE = 0L;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+    private int generation;
+
+    /** Tabela com aproximadamente sizeMb megabytes (mínimo de um bucket). */
+    public TranspositionTable(int sizeMb) {
+        long buckets = Long.highestOneBit(Math.max(1L, (long) sizeMb * 1024 * 1024 / 32));
+        int n = (int) Math.min(buckets, 1 << 26);
+        keys = new long[n * 2];
+        data = new long[n * 2];
+        bucketMask = n - 1;
+    }
+
+    /** Dados da entrada da posição (decodifique com move/score/depth/bound) ou NONE. */
+    public long probe(long key) {
+        int i = ((int) key & bucketMask) << 1;
+        for (int slot = i; slot < i + 2; slot++) {
+            long d = data[slot];
+            if (d != NONE && (keys[slot] ^ d) == key) {
+                return d;
+            }
+        }
+        return NONE;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int i = ((int) key & bucketMask) << 1;
+        long d = (move & 0xFFFFL)
+                | ((long) Math.min(depth, 255) << 16)
+                | ((long) bound << 24)
+                | ((long) generation << 26)
+                | ((long) score << 32);
+
+        long old = data[i];
+        boolean sameKey = (keys[i] ^ old) == key;
+        if (old == NONE || sameKey || depth >= depth(old) || generation(old) != generation) {
+            // Mesma posição sem lance novo: preserva o lance já conhecido
+            if (sameKey && move == 0) d |= old & 0xFFFFL;
+            data[i] = d;
+            keys[i] = key ^ d;
+        } else {
+            data[i + 1] = d;
+            keys[i + 1] = key ^ d;
+        }
+    }
+
+    /** Nova busca: entradas antigas passam a ser substituíveis no slot preferido. */
+    public void newSearch() {
+        generation = (generation + 1) & 0x3F;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+        generation = 0;
+    }
+
+    /** Ocupação em milésimos (amostra dos primeiros 1000 slots). */
+    public int hashfull() {
+        int n = Math.min(1000, data.length), used = 0;
+        for (int i = 0; i < n; i++) {
+            if (data[i] != NONE && generation(data[i]) == generation) used++;
+        }
+        return used * 1000 / n;
+    }
+
+    // --------- Decodificação ----------
+
+    public static int move(long entry) { return (int) (entry & 0xFFFF); }
+
+    public static int depth(long entry) { return (int) ((entry >>> 16) & 0xFF); }
+
+    public static int bound(long entry) { return (int) ((entry >>> 24) & 0x3); }
+
+    public static int score(long entry) { return (int) (entry >> 32); }
+
+    private static int generation(long entry) { return (int) ((entry >>> 26) & 0x3F); }
+}
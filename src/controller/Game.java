@@ -8,14 +8,23 @@
  * - Validar movimentos legais
  * - Registrar histórico de jogadas
  * - Detectar fim de jogo
+ * - Manter a chave Zobrist da posição (incremental)
+ * - Manter em cache os lances legais da posição atual
+ * - Detectar empates por repetição, regra dos 50 lances e material insuficiente
  */
 package controller;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import model.board.Attacks;
 import model.board.Board;
+import model.board.Move;
+import model.board.MoveList;
+import model.board.PackedMove;
 import model.board.Position;
+import model.board.Zobrist;
 import model.pieces.*;
 
 public class Game {
@@ -29,10 +38,49 @@ public class Game {
 
     private final List<String> history = new ArrayList<>();
 
+    // Situação da posição após o último lance de move() (xeque, mate, afogamento)
+    private GameStatus status;
+
+    // Cache dos lances legais da posição atual: montado sob demanda e invalidado
+    // apenas quando um lance é aplicado/desfeito ou o jogo é reiniciado
+    private final MoveList cachedMoves = new MoveList();
+    private final long[] cachedTargets = new long[64]; // destinos por casa de origem
+    private boolean cachedInCheck;
+    private boolean moveCacheValid = false;
+
+    // Zobrist: parte de estado (lado, roques, en passant); as peças ficam em Board.hash()
+    private long stateKey;
+    private int castlingRights;      // máscara Zobrist.CASTLE_* refletida em stateKey
+    private int hashedEpColumn = -1; // coluna en passant refletida em stateKey (-1 = nenhuma)
+
+    /** Verifica a chave incremental contra o cálculo completo após cada lance (-Dchess.debugHash=true). */
+    private static final boolean DEBUG_HASH = Boolean.getBoolean("chess.debugHash");
+
+    // Chaves Zobrist de todas as posições da partida (inclusive as da busca):
+    // keyStack[keyTop - 1] é a posição atual. Base da detecção de repetição.
+    private long[] keyStack = new long[256];
+    private int keyTop = 0;
+
+    // Casas claras: (row + column) par, ex. a8 = bit 0
+    private static final long LIGHT_SQUARES = 0xAA55AA55AA55AA55L;
+
+    // Meios-lances desde a última captura ou lance de peão (regra dos 50 lances)
+    private int halfmoveClock = 0;
+
+    // Pilha de registros de desfazer usada por makeMove/unmakeMove (reaproveitados)
+    private Undo[] undoStack = new Undo[64];
+    private int undoTop = 0;
+
+    // Partida atual deste objeto: incrementado a cada newGame()
+    private int generation = 0;
+
     // Public ctor (starts a fresh game)
     public Game() {
         this.board = new Board();
         setupPieces();
+        resetStateKey();
+        pushKey();
+        status = computeStatus();
     }
 
     // Private ctor used for snapshots (no setup)
@@ -44,14 +92,49 @@ public class Game {
     public boolean isGameOver() { return gameOver; }
     public List<String> history() { return Collections.unmodifiableList(history); }
 
+    /**
+     * Número da partida deste objeto, incrementado por newGame(). Quem guarda estado
+     * entre lances (ex.: ai.EngineSession) compara o número para saber quando descartá-lo.
+     */
+    public int generation() { return generation; }
+
+    /**
+     * Situação da posição atual do jogo (calculada uma vez por lance de move()).
+     * Lances de busca (makeMove/unmakeMove) não a atualizam.
+     */
+    public GameStatus status() { return status; }
+
+    // Acesso do MoveGenerator (mesmo pacote)
+    Position enPassantTarget() { return enPassantTarget; }
+
+    /** Direitos de roque atuais (máscara Zobrist.CASTLE_*). */
+    public int castlingRights() { return castlingRights; }
+
+    /** Coluna en passant só quando algum peão do lado a mover pode capturar; senão -1. */
+    public int enPassantColumn() { return hashableEpColumn(); }
+
+    /** Chave Zobrist de 64 bits da posição atual (peças, lado a mover, roques e en passant). */
+    public long zobristKey() { return board.hash() ^ stateKey; }
+
+    /** Meios-lances desde a última captura ou lance de peão. */
+    public int halfmoveClock() { return halfmoveClock; }
+
     // --------- New game ----------
     public void newGame() {
+        this.generation++;
         this.board = new Board();
         this.whiteToMove = true;
         this.gameOver = false;
         this.enPassantTarget = null;
         this.history.clear();
+        this.undoTop = 0;
+        this.keyTop = 0;
+        this.halfmoveClock = 0;
+        invalidateMoveCache();
         setupPieces();
+        resetStateKey();
+        pushKey();
+        this.status = computeStatus();
     }
 
     // --------- Query legal moves ----------
@@ -60,6 +143,53 @@ public class Game {
         return legalMovesFromWithSpecials(from);
     }
 
+    /** Versão por índice de casa 0..63 (row * 8 + column). */
+    public List<Position> legalMovesFrom(int square) {
+        return legalMovesFromWithSpecials(Position.of(square));
+    }
+
+    /** Número de lances legais do lado a mover (servido pelo cache da posição). */
+    public int legalMoveCount() {
+        ensureMoveCache();
+        return cachedMoves.size();
+    }
+
+    /** Gera todos os lances legais do lado a mover como PackedMove (a lista é limpa antes). */
+    public void generateLegalMoves(MoveList out) {
+        MoveGenerator.generateLegal(this, out, -1L);
+    }
+
+    /** Só capturas (com en passant) e promoções legais do lado a mover — para a quiescência. */
+    public void generateLegalCaptures(MoveList out) {
+        MoveGenerator.generateLegal(this, out, -1L, true);
+    }
+
+    /**
+     * Converte um PackedMove gerado para a posição atual em model.board.Move
+     * (com referências às peças). Chame antes de aplicar o lance.
+     */
+    public Move toMove(int move) {
+        Position from = Position.of(PackedMove.from(move));
+        Position to = Position.of(PackedMove.to(move));
+        Piece moved = board.get(from);
+        int flags = PackedMove.flags(move);
+        if (flags == PackedMove.CASTLE_KING || flags == PackedMove.CASTLE_QUEEN) {
+            return Move.castle(from, to, moved, flags == PackedMove.CASTLE_KING);
+        }
+        if (flags == PackedMove.EN_PASSANT) {
+            Piece victim = board.get(Position.of(from.getRow(), to.getColumn()));
+            return Move.enPassant(from, to, moved, victim);
+        }
+        if (PackedMove.isPromotion(move)) {
+            return Move.promotion(from, to, moved, board.get(to), PackedMove.promotionChar(move));
+        }
+        return Move.normal(from, to, moved, board.get(to));
+    }
+
+    public boolean isPromotion(int from, int to) {
+        return isPromotion(Position.of(from), Position.of(to));
+    }
+
     public boolean isPromotion(Position from, Position to) {
         Piece p = board.get(from);
         if (!(p instanceof Pawn)) return false;
@@ -77,92 +207,201 @@ public class Game {
         List<Position> legal = legalMovesFromWithSpecials(from);
         if (!legal.contains(to)) return;
 
-        boolean isKing = p instanceof King;
-        boolean isPawn = p instanceof Pawn;
-        int dCol = Math.abs(to.getColumn() - from.getColumn());
-
         Piece capturedBefore = board.get(to); // for SAN-ish history
         boolean targetIsKing = (capturedBefore instanceof King);
 
-        // ------- Castling (already validated in legal moves) -------
-        if (isKing && dCol == 2) {
-            int row = from.getRow();
-            // Move king
-            board.set(to, p);
-            board.set(from, null);
-            p.setMoved(true);
-
-            String san;
-            if (to.getColumn() == 6) {
-                // Short castle: rook h->f
-                Piece rook = board.get(new Position(row, 7));
-                board.set(new Position(row, 5), rook);
-                board.set(new Position(row, 7), null);
-                if (rook != null) rook.setMoved(true);
-                san = "O-O";
-            } else {
-                // Long castle: rook a->d
-                Piece rook = board.get(new Position(row, 0));
-                board.set(new Position(row, 3), rook);
-                board.set(new Position(row, 0), null);
-                if (rook != null) rook.setMoved(true);
-                san = "O-O-O";
-            }
+        Undo u = new Undo();
+        doMove(from, to, promotion, u);
 
-            enPassantTarget = null;
-            // Switch side
-            whiteToMove = !whiteToMove;
+        String moveStr;
+        if (u.rook != null) {
+            moveStr = to.getColumn() == 6 ? "O-O" : "O-O-O";
+        } else if (u.enPassant) {
+            moveStr = coord(from) + "x" + coord(to) + " e.p.";
+        } else {
+            moveStr = coord(from) + (capturedBefore != null ? "x" : "-") + coord(to);
+            if (u.promoted != null) moveStr += "=" + u.promoted.getSymbol();
 
-            // annotate + or #
-            if (isCheckmate(whiteToMove)) {
-                san += "#";
+            // >>> segurança: se capturamos um Rei (não deveria acontecer), termina imediatamente
+            if (targetIsKing) {
+                addHistory(moveStr + "#");
                 gameOver = true;
-            } else if (inCheck(whiteToMove)) {
-                san += "+";
+                return;
             }
-            addHistory(san);
+        }
 
-            if (!gameOver) checkGameEnd();
-            return;
+        // Uma única geração de lances responde xeque, mate e afogamento
+        status = computeStatus();
+        if (status.isCheckmate()) {
+            moveStr += "#";
+        } else if (status.isCheck()) {
+            moveStr += "+";
         }
+        addHistory(moveStr);
 
-        // ------- En Passant (already validated in legal moves) -------
-        boolean diagonal = from.getColumn() != to.getColumn();
-        boolean toIsEmpty = board.get(to) == null;
-        boolean isEnPassant = isPawn && diagonal && toIsEmpty && to.equals(enPassantTarget);
+        switch (status.state()) {
+            case STALEMATE -> addHistory("Draw: stalemate");
+            case DRAW_REPETITION -> addHistory("Draw: threefold repetition");
+            case DRAW_FIFTY_MOVES -> addHistory("Draw: fifty-move rule");
+            case DRAW_INSUFFICIENT_MATERIAL -> addHistory("Draw: insufficient material");
+            default -> { }
+        }
+        gameOver = status.isGameOver();
+    }
 
-        String moveStr;
+    // --------- Reversible make/unmake (search & legality probes) ----------
 
-        if (isEnPassant) {
-            // Move pawn to target
-            board.set(to, p);
-            board.set(from, null);
-            // Remove the pawn that moved two squares last turn (victim behind target)
-            int dir = p.isWhite() ? 1 : -1;
-            Position victim = new Position(to.getRow() + dir, to.getColumn());
-            board.set(victim, null);
-            p.setMoved(true);
-            moveStr = coord(from) + "x" + coord(to) + " e.p.";
-            enPassantTarget = null;
+    /**
+     * Aplica o lance no próprio tabuleiro SEM validar legalidade, sem histórico e sem
+     * detectar fim de jogo. Empilha um registro de desfazer; use unmakeMove() para voltar.
+     * Substitui snapshotShallow() nos laços de busca (nenhuma cópia de tabuleiro).
+     */
+    public void makeMove(Position from, Position to, Character promotion) {
+        if (undoTop == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+        }
+        Undo u = undoStack[undoTop];
+        if (u == null) {
+            u = new Undo();
+            undoStack[undoTop] = u;
+        }
+        undoTop++;
+        doMove(from, to, promotion, u);
+    }
 
-            // Switch side
-            whiteToMove = !whiteToMove;
+    /** Versão por índice de casa 0..63 de makeMove(Position, Position, Character). */
+    public void makeMove(int from, int to, Character promotion) {
+        makeMove(Position.of(from), Position.of(to), promotion);
+    }
 
-            // annotate + or #
-            if (isCheckmate(whiteToMove)) {
-                moveStr += "#";
-                gameOver = true;
-            } else if (inCheck(whiteToMove)) {
-                moveStr += "+";
-            }
-            addHistory(moveStr);
+    /** Aplica um PackedMove (ver makeMove(Position, Position, Character)). */
+    public void makeMove(int move) {
+        Character promo = PackedMove.isPromotion(move) ? PackedMove.promotionChar(move) : null;
+        makeMove(Position.of(PackedMove.from(move)), Position.of(PackedMove.to(move)), promo);
+    }
 
-            if (!gameOver) checkGameEnd();
-            return;
+    /**
+     * Lance nulo da busca (o lado a mover passa a vez): troca a vez e apaga o en
+     * passant, sem mexer nas peças. Não use em xeque. Desfaça com unmakeNullMove().
+     * A repetição não é procurada antes do lance nulo (a sequência não é uma partida real).
+     */
+    public void makeNullMove() {
+        if (undoTop == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+        }
+        Undo u = undoStack[undoTop];
+        if (u == null) {
+            u = new Undo();
+            undoStack[undoTop] = u;
         }
+        undoTop++;
+        u.prevEnPassant = enPassantTarget;
+        u.prevStateKey = stateKey;
+        u.prevCastlingRights = castlingRights;
+        u.prevHashedEpColumn = hashedEpColumn;
+        u.prevHalfmoveClock = halfmoveClock;
+
+        enPassantTarget = null;
+        whiteToMove = !whiteToMove;
+        stateKey ^= Zobrist.side() ^ Zobrist.enPassant(hashedEpColumn);
+        hashedEpColumn = -1;
+        halfmoveClock = 0;
+        invalidateMoveCache();
+        pushKey();
+        if (DEBUG_HASH) verifyZobristKey();
+    }
+
+    /** Desfaz o último makeNullMove. */
+    public void unmakeNullMove() {
+        Undo u = undoStack[--undoTop];
+        whiteToMove = !whiteToMove;
+        enPassantTarget = u.prevEnPassant;
+        stateKey = u.prevStateKey;
+        castlingRights = u.prevCastlingRights;
+        hashedEpColumn = u.prevHashedEpColumn;
+        halfmoveClock = u.prevHalfmoveClock;
+        keyTop--;
+        u.clear();
+        invalidateMoveCache();
+    }
+
+    /** Desfaz o último makeMove (restaura peças, flags de movimento, en passant e vez). */
+    public void unmakeMove() {
+        if (undoTop == 0) return;
+        Undo u = undoStack[--undoTop];
 
-        // ------- Promotion (auto-queen if promotion is null) -------
-        if (isPawn && isPromotion(from, to)) {
+        whiteToMove = !whiteToMove;
+        enPassantTarget = u.prevEnPassant;
+        stateKey = u.prevStateKey;
+        castlingRights = u.prevCastlingRights;
+        hashedEpColumn = u.prevHashedEpColumn;
+
+        if (u.rook != null) {
+            board.set(u.rookTo, null);
+            board.set(u.rookFrom, u.rook);
+            u.rook.setMoved(u.rookMoved);
+        }
+
+        board.set(u.to, null);
+        board.set(u.from, u.mover);
+        u.mover.setMoved(u.moverMoved);
+        if (u.captured != null) board.set(u.capturedAt, u.captured);
+
+        halfmoveClock = u.prevHalfmoveClock;
+        keyTop--;
+
+        u.clear();
+        invalidateMoveCache();
+        if (DEBUG_HASH) verifyZobristKey();
+    }
+
+    /** Núcleo comum de move()/makeMove(): altera o tabuleiro e preenche o registro de desfazer. */
+    private void doMove(Position from, Position to, Character promotion, Undo u) {
+        Piece p = board.get(from);
+        invalidateMoveCache();
+
+        u.from = from;
+        u.to = to;
+        u.mover = p;
+        u.moverMoved = p.hasMoved();
+        u.captured = board.get(to);
+        u.capturedAt = to;
+        u.prevEnPassant = enPassantTarget;
+        u.prevStateKey = stateKey;
+        u.prevCastlingRights = castlingRights;
+        u.prevHashedEpColumn = hashedEpColumn;
+        u.prevHalfmoveClock = halfmoveClock;
+
+        boolean isPawn = p instanceof Pawn;
+        int dCol = Math.abs(to.getColumn() - from.getColumn());
+
+        if (p instanceof King && dCol == 2) {
+            // ------- Castling (rook h->f or a->d) -------
+            int row = from.getRow();
+            boolean shortSide = to.getColumn() == 6;
+            u.rookFrom = Position.of(row, shortSide ? 7 : 0);
+            u.rookTo = Position.of(row, shortSide ? 5 : 3);
+            u.rook = board.get(u.rookFrom);
+
+            board.set(to, p);
+            board.set(from, null);
+            if (u.rook != null) {
+                u.rookMoved = u.rook.hasMoved();
+                board.set(u.rookTo, u.rook);
+                board.set(u.rookFrom, null);
+                u.rook.setMoved(true);
+            }
+        } else if (isPawn && dCol == 1 && u.captured == null && to.equals(enPassantTarget)) {
+            // ------- En passant: victim is behind the target square -------
+            int dir = p.isWhite() ? 1 : -1;
+            u.capturedAt = Position.of(to.getRow() + dir, to.getColumn());
+            u.captured = board.get(u.capturedAt);
+            u.enPassant = true;
+            board.set(u.capturedAt, null);
+            board.set(to, p);
+            board.set(from, null);
+        } else if (isPawn && isPromotion(from, to)) {
+            // ------- Promotion (auto-queen if promotion is null) -------
             char ch = (promotion == null) ? 'Q' : Character.toUpperCase(promotion);
             Piece np = switch (ch) {
                 case 'R' -> new Rook(board, p.isWhite());
@@ -171,39 +410,20 @@ public class Game {
                 default  -> new Queen(board, p.isWhite());
             };
             np.setMoved(true);
+            u.promoted = np;
             board.set(from, null);
             board.set(to, np);
-
-            // >>> segurança: se, por algum motivo, havia um Rei na casa alvo (não deveria), termina
-            if (targetIsKing) {
-                String san = coord(from) + "x" + coord(to) + "=" + np.getSymbol() + "#";
-                addHistory(san);
-                gameOver = true;
-                return;
-            }
-
-            moveStr = coord(from) + (capturedBefore != null ? "x" : "-") + coord(to) + "=" + np.getSymbol();
         } else {
-            // Normal move / capture
+            // ------- Normal move / capture -------
             board.set(to, p);
             board.set(from, null);
-            p.setMoved(true);
-
-            // >>> segurança: se capturamos um Rei (não deveria acontecer), termina imediatamente
-            if (targetIsKing) {
-                String san = coord(from) + "x" + coord(to) + "#";
-                addHistory(san);
-                gameOver = true;
-                return;
-            }
-
-            moveStr = coord(from) + (capturedBefore != null ? "x" : "-") + coord(to);
         }
+        p.setMoved(true);
 
         // ------- En-passant availability after a double pawn push -------
         if (isPawn && Math.abs(to.getRow() - from.getRow()) == 2) {
             int mid = (to.getRow() + from.getRow()) / 2;
-            enPassantTarget = new Position(mid, from.getColumn());
+            enPassantTarget = Position.of(mid, from.getColumn());
         } else {
             enPassantTarget = null;
         }
@@ -211,278 +431,284 @@ public class Game {
         // Switch side
         whiteToMove = !whiteToMove;
 
-        // annotate + or #
-        if (isCheckmate(whiteToMove)) {
-            moveStr += "#";
-            gameOver = true;
-        } else if (inCheck(whiteToMove)) {
-            moveStr += "+";
-        }
-
-        addHistory(moveStr);
-        if (!gameOver) checkGameEnd();
-    }
-
-    // --------- Checks / mates ----------
-    public boolean inCheck(boolean whiteSide) {
-        Position k = findKing(whiteSide);
-        // Se o rei não existe no tabuleiro, trate como "em xeque" (estado inválido/terminal).
-        if (k == null) return true;
-        return isSquareAttacked(k, whiteSide);
+        // Zobrist incremental: só as parcelas que mudaram (peças já atualizadas pelo Board)
+        int rights = computeCastlingRights();
+        int epColumn = hashableEpColumn();
+        stateKey ^= Zobrist.side()
+                ^ Zobrist.castling(castlingRights) ^ Zobrist.castling(rights)
+                ^ Zobrist.enPassant(hashedEpColumn) ^ Zobrist.enPassant(epColumn);
+        castlingRights = rights;
+        hashedEpColumn = epColumn;
+        if (DEBUG_HASH) verifyZobristKey();
+
+        // Captura ou lance de peão: nenhuma posição anterior pode se repetir
+        halfmoveClock = (isPawn || u.captured != null) ? 0 : halfmoveClock + 1;
+        pushKey();
     }
 
-    public boolean isCheckmate(boolean whiteSide) {
-        if (!inCheck(whiteSide)) return false;
+    // --------- Zobrist helpers ----------
 
-        // If the side has any legal move that avoids check, it's not mate
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Position from = new Position(row, col);
-                Piece piece = board.get(from);
-                if (piece != null && piece.isWhite() == whiteSide) {
-                    for (Position to : legalMovesFromWithSpecials(from)) {
-                        Game g = snapshotShallow();
-                        g.forceMoveNoChecks(from, to);
-                        if (!g.inCheck(whiteSide)) return false;
-                    }
-                }
-            }
+    /** Calcula a chave do zero (varre o tabuleiro). Usado na inicialização e no modo de depuração. */
+    public long computeZobristKey() {
+        long key = 0L;
+        long occ = board.occupied();
+        while (occ != 0) {
+            int sq = Long.numberOfTrailingZeros(occ);
+            occ &= occ - 1;
+            key ^= Zobrist.piece(board.get(sq).bitboardIndex(), sq);
         }
-        return true;
+        if (!whiteToMove) key ^= Zobrist.side();
+        key ^= Zobrist.castling(computeCastlingRights());
+        key ^= Zobrist.enPassant(hashableEpColumn());
+        return key;
     }
 
-    private void checkGameEnd() {
-        // Checkmate
-        if (isCheckmate(whiteToMove)) {
-            gameOver = true;
-            addHistory("Checkmate: " + (whiteToMove ? "White" : "Black") + " loses");
-            return;
-        }
-
-        // Stalemate: no legal moves and not in check
-        if (!inCheck(whiteToMove)) {
-            boolean hasAny = false;
-            for (int r = 0; r < 8 && !hasAny; r++) {
-                for (int c = 0; c < 8 && !hasAny; c++) {
-                    Position from = new Position(r, c);
-                    Piece piece = board.get(from);
-                    if (piece != null && piece.isWhite() == whiteToMove) {
-                        if (!legalMovesFromWithSpecials(from).isEmpty()) {
-                            hasAny = true;
-                        }
-                    }
-                }
-            }
-            if (!hasAny) {
-                gameOver = true;
-                addHistory("Draw: stalemate");
-            }
+    private void verifyZobristKey() {
+        long expected = computeZobristKey();
+        if (zobristKey() != expected) {
+            throw new IllegalStateException("Zobrist incremental divergiu: "
+                    + Long.toHexString(zobristKey()) + " != " + Long.toHexString(expected));
         }
     }
 
-    // --------- Helpers: legality & attack maps ----------
-    private List<Position> legalMovesFromWithSpecials(Position from) {
-        Piece p = board.get(from);
-        if (p == null || p.isWhite() != whiteToMove) return List.of();
+    private void resetStateKey() {
+        castlingRights = computeCastlingRights();
+        hashedEpColumn = hashableEpColumn();
+        stateKey = (whiteToMove ? 0L : Zobrist.side())
+                ^ Zobrist.castling(castlingRights)
+                ^ Zobrist.enPassant(hashedEpColumn);
+    }
 
-        List<Position> moves = new ArrayList<>(p.getPossibleMoves());
-
-        // En Passant candidate square
-        if (p instanceof Pawn && enPassantTarget != null) {
-            int dir = p.isWhite() ? -1 : 1; // white pawns go up (row--), so attack is -1
-            if (from.getRow() + dir == enPassantTarget.getRow()
-                    && Math.abs(from.getColumn() - enPassantTarget.getColumn()) == 1) {
-                // Ensure there is an enemy pawn on the square behind target
-                Piece victim = board.get(new Position(enPassantTarget.getRow() - dir, enPassantTarget.getColumn()));
-                if (victim instanceof Pawn && victim.isWhite() != p.isWhite()) {
-                    moves.add(enPassantTarget);
-                }
-            }
+    /** Direitos de roque derivados de hasMoved() do rei e das torres nas casas iniciais. */
+    private int computeCastlingRights() {
+        int rights = 0;
+        if (unmoved(60, King.class, true)) {
+            if (unmoved(63, Rook.class, true)) rights |= Zobrist.CASTLE_WHITE_KING;
+            if (unmoved(56, Rook.class, true)) rights |= Zobrist.CASTLE_WHITE_QUEEN;
         }
-
-        // Castling candidates (king not moved, not in check, path empty, pass squares not attacked)
-        if (p instanceof King && !p.hasMoved() && !inCheck(p.isWhite())) {
-            int row = from.getRow();
-            // Short castle to g-file (col 6)
-            if (canCastle(row, 4, 7, 5, 6, p.isWhite())) moves.add(new Position(row, 6));
-            // Long castle to c-file (col 2)
-            if (canCastle(row, 4, 0, 3, 2, p.isWhite())) moves.add(new Position(row, 2));
+        if (unmoved(4, King.class, false)) {
+            if (unmoved(7, Rook.class, false)) rights |= Zobrist.CASTLE_BLACK_KING;
+            if (unmoved(0, Rook.class, false)) rights |= Zobrist.CASTLE_BLACK_QUEEN;
         }
+        return rights;
+    }
 
-        // >>> NUNCA permitir "capturar" Rei inimigo
-        moves.removeIf(to -> {
-            Piece tgt = board.get(to);
-            return (tgt instanceof King) && (tgt.isWhite() != p.isWhite());
-        });
-
-        // Filter out moves que deixam o próprio rei em xeque
-        moves.removeIf(to -> leavesKingInCheck(from, to));
-        return moves;
+    private boolean unmoved(int sq, Class<? extends Piece> type, boolean white) {
+        Piece p = board.get(sq);
+        return type.isInstance(p) && p.isWhite() == white && !p.hasMoved();
     }
 
-    private boolean canCastle(int row, int kingCol, int rookCol, int passCol1, int passCol2, boolean whiteSide) {
-        Piece rook = board.get(new Position(row, rookCol));
-        if (!(rook instanceof Rook) || rook.hasMoved()) return false;
+    /**
+     * Coluna en passant que entra na chave: apenas quando algum peão do lado a mover
+     * pode de fato capturar (assim posições idênticas têm a mesma chave).
+     */
+    private int hashableEpColumn() {
+        if (enPassantTarget == null) return -1;
+        int target = enPassantTarget.getSquare();
+        long capturers = Attacks.pawn(!whiteToMove, target) & board.bitboard(whiteToMove, Piece.PAWN);
+        return capturers != 0 ? enPassantTarget.getColumn() : -1;
+    }
 
-        // Path between king and rook must be empty
-        int step = (rookCol > kingCol) ? 1 : -1;
-        for (int c = kingCol + step; c != rookCol; c += step) {
-            if (board.get(new Position(row, c)) != null) return false;
+    // --------- Checks / mates ----------
+    public boolean inCheck(boolean whiteSide) {
+        if (whiteSide == whiteToMove) {
+            ensureMoveCache();
+            return cachedInCheck;
         }
+        int k = board.kingSquare(whiteSide);
+        // Se o rei não existe no tabuleiro, trate como "em xeque" (estado inválido/terminal).
+        if (k < 0) return true;
+        return isSquareAttacked(k, whiteSide);
+    }
 
-        // Squares king passes through (and destination) must not be attacked
-        Position p1 = new Position(row, passCol1);
-        Position p2 = new Position(row, passCol2);
-        if (isSquareAttacked(p1, whiteSide) || isSquareAttacked(p2, whiteSide)) return false;
+    public boolean isCheckmate(boolean whiteSide) {
+        if (!inCheck(whiteSide)) return false;
+
+        // If the side has any legal move that avoids check, it's not mate
+        // (o gerador já descarta lances que deixam o rei em xeque)
+        return !hasAnyLegalMove(whiteSide);
+    }
 
-        return true;
+    /** Xeque e número de lances legais do lado a mover, numa só passada do gerador. */
+    private GameStatus computeStatus() {
+        ensureMoveCache();
+        GameStatus.State draw = null;
+        if (isInsufficientMaterial()) draw = GameStatus.State.DRAW_INSUFFICIENT_MATERIAL;
+        else if (repetitionCount() >= 3) draw = GameStatus.State.DRAW_REPETITION;
+        else if (halfmoveClock >= 100) draw = GameStatus.State.DRAW_FIFTY_MOVES;
+        return new GameStatus(cachedInCheck, cachedMoves.size(), draw);
     }
 
-    private boolean leavesKingInCheck(Position from, Position to) {
-        Piece mover = board.get(from);
-        if (mover == null) return true;
+    // --------- Empates por regra ----------
 
-        Game g = snapshotShallow();
-        g.forceMoveNoChecks(from, to);
-        return g.inCheck(mover.isWhite());
+    private void pushKey() {
+        if (keyTop == keyStack.length) keyStack = Arrays.copyOf(keyStack, keyTop * 2);
+        keyStack[keyTop++] = zobristKey();
     }
 
     /**
-     * True se `sq` está atacada por QUALQUER peça do lado oposto a `sideToProtect`.
-     * Implementa padrões de ataque corretos para peão/cavalo/rei/deslizantes.
+     * Quantas vezes a posição atual ocorreu na partida (contando a atual).
+     * Só olha o mesmo lado a mover (de 2 em 2) e para no último lance irreversível.
      */
-    private boolean isSquareAttacked(Position sq, boolean sideToProtect) {
-        int r = sq.getRow(), c = sq.getColumn();
-
-        // 1) Ataques de peão (peão inimigo estaria uma linha "atrás" da sq na direção dele)
-        int dir = sideToProtect ? -1 : 1; // protegendo brancas => peões pretos atacam +1 (descendo)
-        int rp = r - dir;
-        if (rp >= 0 && rp < 8) {
-            if (c - 1 >= 0) {
-                Piece p = board.get(new Position(rp, c - 1));
-                if (p instanceof Pawn && p.isWhite() != sideToProtect) return true;
-            }
-            if (c + 1 < 8) {
-                Piece p = board.get(new Position(rp, c + 1));
-                if (p instanceof Pawn && p.isWhite() != sideToProtect) return true;
-            }
-        }
-
-        // 2) Ataques de cavalo
-        int[][] KJUMPS = {{-2,-1},{-2,1},{-1,-2},{-1,2},{1,-2},{1,2},{2,-1},{2,1}};
-        for (int[] d : KJUMPS) {
-            int rr = r + d[0], cc = c + d[1];
-            if (rr>=0 && rr<8 && cc>=0 && cc<8) {
-                Piece p = board.get(new Position(rr, cc));
-                if (p instanceof Knight && p.isWhite() != sideToProtect) return true;
-            }
-        }
-
-        // 3) Ataques do rei (adjacentes)
-        for (int dr=-1; dr<=1; dr++) for (int dc=-1; dc<=1; dc++) {
-            if (dr==0 && dc==0) continue;
-            int rr = r+dr, cc = c+dc;
-            if (rr>=0 && rr<8 && cc>=0 && cc<8) {
-                Piece p = board.get(new Position(rr, cc));
-                if (p instanceof King && p.isWhite() != sideToProtect) return true;
-            }
-        }
-
-        // 4) Deslizantes: torre/rainha (linhas/colunas)
-        int[][] ROOK_DIRS = {{-1,0},{1,0},{0,-1},{0,1}};
-        for (int[] d : ROOK_DIRS) {
-            int rr = r + d[0], cc = c + d[1];
-            while (rr>=0 && rr<8 && cc>=0 && cc<8) {
-                Piece p = board.get(new Position(rr, cc));
-                if (p != null) {
-                    if (p.isWhite() != sideToProtect && (p instanceof Rook || p instanceof Queen)) return true;
-                    break;
-                }
-                rr += d[0]; cc += d[1];
-            }
+    public int repetitionCount() {
+        long key = keyStack[keyTop - 1];
+        int count = 1;
+        int limit = Math.max(0, keyTop - 1 - halfmoveClock);
+        for (int i = keyTop - 3; i >= limit; i -= 2) {
+            if (keyStack[i] == key) count++;
         }
+        return count;
+    }
 
-        // 5) Deslizantes: bispo/rainha (diagonais)
-        int[][] BISHOP_DIRS = {{-1,-1},{-1,1},{1,-1},{1,1}};
-        for (int[] d : BISHOP_DIRS) {
-            int rr = r + d[0], cc = c + d[1];
-            while (rr>=0 && rr<8 && cc>=0 && cc<8) {
-                Piece p = board.get(new Position(rr, cc));
-                if (p != null) {
-                    if (p.isWhite() != sideToProtect && (p instanceof Bishop || p instanceof Queen)) return true;
-                    break;
-                }
-                rr += d[0]; cc += d[1];
-            }
+    /** True se a posição atual já ocorreu antes (a busca trata como empate). */
+    public boolean isRepetition() {
+        long key = keyStack[keyTop - 1];
+        int limit = Math.max(0, keyTop - 1 - halfmoveClock);
+        for (int i = keyTop - 3; i >= limit; i -= 2) {
+            if (keyStack[i] == key) return true;
         }
-
         return false;
     }
 
-    // Executes a move on this.board without doing legality checks or specials.
-    // Used only inside snapshots where the move was already validated.
-    private void forceMoveNoChecks(Position from, Position to) {
-        Piece p = board.get(from);
-        if (p == null) return;
-
-        int dCol = Math.abs(to.getColumn() - from.getColumn());
-        boolean isPawn = p instanceof Pawn;
-        boolean isKing = p instanceof King;
+    /**
+     * Nenhum dos lados pode dar mate: K x K, K + peça menor x K,
+     * ou apenas bispos (de qualquer lado) todos em casas da mesma cor.
+     */
+    public boolean isInsufficientMaterial() {
+        long heavy = board.bitboard(true, Piece.PAWN) | board.bitboard(false, Piece.PAWN)
+                | board.bitboard(true, Piece.ROOK) | board.bitboard(false, Piece.ROOK)
+                | board.bitboard(true, Piece.QUEEN) | board.bitboard(false, Piece.QUEEN);
+        if (heavy != 0) return false;
+        long knights = board.bitboard(true, Piece.KNIGHT) | board.bitboard(false, Piece.KNIGHT);
+        long bishops = board.bitboard(true, Piece.BISHOP) | board.bitboard(false, Piece.BISHOP);
+        int minors = Long.bitCount(knights | bishops);
+        if (minors <= 1) return true;
+        if (knights != 0) return false;
+        return (bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0;
+    }
 
-        // Detect en passant: pawn moves diagonally onto empty square that equals enPassantTarget
-        boolean diagonal = from.getColumn() != to.getColumn();
-        boolean toIsEmpty = board.get(to) == null;
-        boolean ep = isPawn && diagonal && toIsEmpty && enPassantTarget != null && to.equals(enPassantTarget);
+    /** Empate por regra na posição atual (repetição, 50 lances ou material insuficiente). */
+    public boolean isDrawByRule() {
+        return halfmoveClock >= 100 || isRepetition() || isInsufficientMaterial();
+    }
 
-        // Detect castling: king moves two columns
-        boolean castle = isKing && dCol == 2;
+    // --------- Cache de lances legais da posição atual ----------
 
-        // Base move
-        board.set(to, p);
-        board.set(from, null);
-        p.setMoved(true);
+    private void invalidateMoveCache() {
+        moveCacheValid = false;
+    }
 
-        // Apply en passant capture
-        if (ep) {
-            int dir = p.isWhite() ? 1 : -1; // victim behind target
-            Position victim = new Position(to.getRow() + dir, to.getColumn());
-            board.set(victim, null);
+    /** Gera (uma vez por posição) a tabela de lances legais, destinos por origem e o xeque. */
+    private void ensureMoveCache() {
+        if (moveCacheValid) return;
+        MoveGenerator.generateLegal(this, cachedMoves, -1L);
+        Arrays.fill(cachedTargets, 0L);
+        for (int i = 0; i < cachedMoves.size(); i++) {
+            int m = cachedMoves.get(i);
+            cachedTargets[PackedMove.from(m)] |= 1L << PackedMove.to(m);
         }
+        int k = board.kingSquare(whiteToMove);
+        // Se o rei não existe no tabuleiro, trate como "em xeque" (estado inválido/terminal).
+        cachedInCheck = k < 0 || isSquareAttacked(k, whiteToMove);
+        moveCacheValid = true;
+    }
 
-        // Apply rook move for castling
-        if (castle) {
-            int row = to.getRow();
-            if (to.getColumn() == 6) {
-                // O-O: rook h -> f
-                Piece rook = board.get(new Position(row, 7));
-                board.set(new Position(row, 5), rook);
-                board.set(new Position(row, 7), null);
-                if (rook != null) rook.setMoved(true);
-            } else if (to.getColumn() == 2) {
-                // O-O-O: rook a -> d
-                Piece rook = board.get(new Position(row, 0));
-                board.set(new Position(row, 3), rook);
-                board.set(new Position(row, 0), null);
-                if (rook != null) rook.setMoved(true);
-            }
+    // --------- Helpers: legality & attack maps ----------
+    private boolean hasAnyLegalMove(boolean whiteSide) {
+        if (whiteSide != whiteToMove) return false;
+        ensureMoveCache();
+        return !cachedMoves.isEmpty();
+    }
+
+    private List<Position> legalMovesFromWithSpecials(Position from) {
+        Piece p = board.get(from);
+        if (p == null || p.isWhite() != whiteToMove) return List.of();
+
+        // Inclui roque e en passant; já descarta lances que deixam o rei em xeque.
+        // Promoções compartilham o destino: um bit por casa no cache.
+        ensureMoveCache();
+        long targets = cachedTargets[from.getSquare()];
+        List<Position> moves = new ArrayList<>(Long.bitCount(targets));
+        while (targets != 0) {
+            moves.add(Position.of(Long.numberOfTrailingZeros(targets)));
+            targets &= targets - 1;
         }
+        return moves;
+    }
 
-        // For snapshot simulation we don't keep EP availability
-        enPassantTarget = null;
+    /**
+     * True se `sq` está atacada por QUALQUER peça do lado oposto a `sideToProtect`.
+     * Delegado aos bitboards do Board (tabelas de ataque + magics para deslizantes).
+     */
+    private boolean isSquareAttacked(int sq, boolean sideToProtect) {
+        return board.isAttacked(sq, !sideToProtect);
     }
 
-    // --------- King location ----------
-    private Position findKing(boolean whiteSide) {
+    /**
+     * Cria um jogo a partir de uma posição FEN (peças, lado, roques, en passant).
+     * Direitos de roque viram flags hasMoved() do rei/torres; peões fora da fileira
+     * inicial são marcados como já movidos. O relógio de meios-lances é lido;
+     * o número do lance é ignorado.
+     */
+    public static Game fromFen(String fen) {
+        String[] parts = fen.trim().split("\\s+");
+        if (parts.length < 2) throw new IllegalArgumentException("FEN inválida: " + fen);
+
+        Game g = new Game(true);
+        g.board = new Board();
+        String[] ranks = parts[0].split("/");
+        if (ranks.length != 8) throw new IllegalArgumentException("FEN inválida: " + fen);
         for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                Position pos = new Position(row, col);
-                Piece piece = board.get(pos);
-                if (piece instanceof King && piece.isWhite() == whiteSide) {
-                    return pos;
+            int col = 0;
+            for (char ch : ranks[row].toCharArray()) {
+                if (Character.isDigit(ch)) {
+                    col += ch - '0';
+                    continue;
                 }
+                boolean white = Character.isUpperCase(ch);
+                Piece p = switch (Character.toUpperCase(ch)) {
+                    case 'K' -> new King(g.board, white);
+                    case 'Q' -> new Queen(g.board, white);
+                    case 'R' -> new Rook(g.board, white);
+                    case 'B' -> new Bishop(g.board, white);
+                    case 'N' -> new Knight(g.board, white);
+                    case 'P' -> new Pawn(g.board, white);
+                    default -> throw new IllegalArgumentException("Peça inválida na FEN: " + ch);
+                };
+                if (col > 7) throw new IllegalArgumentException("FEN inválida: " + fen);
+                g.board.placePiece(p, Position.of(row, col++));
+            }
+        }
+        g.whiteToMove = parts[1].equals("w");
+
+        String castling = parts.length > 2 ? parts[2] : "-";
+        for (int sq = 0; sq < 64; sq++) {
+            Piece p = g.board.get(sq);
+            if (p == null) continue;
+            int row = sq >>> 3, col = sq & 7;
+            if (p instanceof Pawn) {
+                p.setMoved(row != (p.isWhite() ? 6 : 1));
+            } else if (p instanceof Rook) {
+                char right = col == 7 ? 'K' : col == 0 ? 'Q' : '?';
+                if (!p.isWhite()) right = Character.toLowerCase(right);
+                p.setMoved(row != (p.isWhite() ? 7 : 0) || castling.indexOf(right) < 0);
+            } else if (p instanceof King) {
+                String rights = p.isWhite() ? "KQ" : "kq";
+                boolean any = castling.indexOf(rights.charAt(0)) >= 0 || castling.indexOf(rights.charAt(1)) >= 0;
+                p.setMoved(sq != (p.isWhite() ? 60 : 4) || !any);
             }
         }
-        return null;
+
+        String ep = parts.length > 3 ? parts[3] : "-";
+        if (!ep.equals("-")) {
+            g.enPassantTarget = Position.of('8' - ep.charAt(1), ep.charAt(0) - 'a');
+        }
+        if (parts.length > 4) g.halfmoveClock = Integer.parseInt(parts[4]);
+        g.resetStateKey();
+        g.pushKey();
+        g.status = g.computeStatus();
+        g.gameOver = g.status.isGameOver();
+        return g;
     }
 
     /**
@@ -494,10 +720,16 @@ public class Game {
         g.board = this.board.copy(); // IMPORTANT: Board.copy() must deep-copy pieces and fix their board refs.
         g.whiteToMove = this.whiteToMove;
         g.gameOver = this.gameOver;
-        g.enPassantTarget = (this.enPassantTarget == null)
-                ? null
-                : new Position(this.enPassantTarget.getRow(), this.enPassantTarget.getColumn());
+        g.enPassantTarget = this.enPassantTarget; // Position é imutável e compartilhada
         g.history.addAll(this.history);
+        g.generation = this.generation;
+        g.stateKey = this.stateKey; // a parte das peças vem junto com Board.copy()
+        g.castlingRights = this.castlingRights;
+        g.hashedEpColumn = this.hashedEpColumn;
+        g.status = this.status; // imutável
+        g.keyStack = Arrays.copyOf(this.keyStack, this.keyStack.length); // repetição vê a partida toda
+        g.keyTop = this.keyTop;
+        g.halfmoveClock = this.halfmoveClock;
         return g;
     }
 
@@ -515,31 +747,57 @@ public class Game {
     // --------- Initial setup ----------
     private void setupPieces() {
         // White back rank (row 7)
-        board.placePiece(new Rook(board, true), new Position(7, 0));
-        board.placePiece(new Knight(board, true), new Position(7, 1));
-        board.placePiece(new Bishop(board, true), new Position(7, 2));
-        board.placePiece(new Queen(board, true), new Position(7, 3));
-        board.placePiece(new King(board, true), new Position(7, 4));
-        board.placePiece(new Bishop(board, true), new Position(7, 5));
-        board.placePiece(new Knight(board, true), new Position(7, 6));
-        board.placePiece(new Rook(board, true), new Position(7, 7));
+        board.placePiece(new Rook(board, true), Position.of(7, 0));
+        board.placePiece(new Knight(board, true), Position.of(7, 1));
+        board.placePiece(new Bishop(board, true), Position.of(7, 2));
+        board.placePiece(new Queen(board, true), Position.of(7, 3));
+        board.placePiece(new King(board, true), Position.of(7, 4));
+        board.placePiece(new Bishop(board, true), Position.of(7, 5));
+        board.placePiece(new Knight(board, true), Position.of(7, 6));
+        board.placePiece(new Rook(board, true), Position.of(7, 7));
         // White pawns (row 6)
         for (int c = 0; c < 8; c++) {
-            board.placePiece(new Pawn(board, true), new Position(6, c));
+            board.placePiece(new Pawn(board, true), Position.of(6, c));
         }
 
         // Black back rank (row 0)
-        board.placePiece(new Rook(board, false), new Position(0, 0));
-        board.placePiece(new Knight(board, false), new Position(0, 1));
-        board.placePiece(new Bishop(board, false), new Position(0, 2));
-        board.placePiece(new Queen(board, false), new Position(0, 3));
-        board.placePiece(new King(board, false), new Position(0, 4));
-        board.placePiece(new Bishop(board, false), new Position(0, 5));
-        board.placePiece(new Knight(board, false), new Position(0, 6));
-        board.placePiece(new Rook(board, false), new Position(0, 7));
+        board.placePiece(new Rook(board, false), Position.of(0, 0));
+        board.placePiece(new Knight(board, false), Position.of(0, 1));
+        board.placePiece(new Bishop(board, false), Position.of(0, 2));
+        board.placePiece(new Queen(board, false), Position.of(0, 3));
+        board.placePiece(new King(board, false), Position.of(0, 4));
+        board.placePiece(new Bishop(board, false), Position.of(0, 5));
+        board.placePiece(new Knight(board, false), Position.of(0, 6));
+        board.placePiece(new Rook(board, false), Position.of(0, 7));
         // Black pawns (row 1)
         for (int c = 0; c < 8; c++) {
-            board.placePiece(new Pawn(board, false), new Position(1, c));
+            board.placePiece(new Pawn(board, false), Position.of(1, c));
+        }
+    }
+
+    // --------- Undo record ----------
+    /** Estado necessário para desfazer um lance aplicado por doMove(). */
+    private static final class Undo {
+        Position from, to;
+        Piece mover;
+        boolean moverMoved;
+        Piece captured;
+        Position capturedAt;      // difere de "to" no en passant
+        boolean enPassant;
+        Piece promoted;           // peça criada na promoção (ou null)
+        Piece rook;               // torre do roque (ou null)
+        Position rookFrom, rookTo;
+        boolean rookMoved;
+        Position prevEnPassant;
+        long prevStateKey;
+        int prevCastlingRights;
+        int prevHashedEpColumn;
+        int prevHalfmoveClock;
+
+        void clear() {
+            from = to = capturedAt = rookFrom = rookTo = prevEnPassant = null;
+            mover = captured = promoted = rook = null;
+            moverMoved = enPassant = rookMoved = false;
         }
     }
 }
@@ -0,0 +1,45 @@
+/**
+ * GameStatus.java
+ * Situação da posição atual, calculada UMA vez após cada lance (Game.move).
+ *
+ * Um único passo do gerador de lances legais responde a todas as perguntas
+ * de fim de jogo: xeque, xeque-mate, afogamento e quantos lances existem.
+ * Empates por regra (repetição tripla, 50 lances, material insuficiente) vêm
+ * de Game, pela pilha de chaves Zobrist e pelo relógio de meios-lances.
+ * Game e a interface gráfica consultam este objeto em vez de regerar lances.
+ */
+package controller;
+
+public final class GameStatus {
+
+    /** Resultado da posição para o lado a mover. */
+    public enum State {
+        ONGOING, CHECKMATE, STALEMATE,
+        DRAW_REPETITION, DRAW_FIFTY_MOVES, DRAW_INSUFFICIENT_MATERIAL
+    }
+
+    private final State state;
+    private final boolean inCheck;
+    private final int legalMoveCount;
+
+    /** draw: empate por regra detectado em Game (ou null); mate e afogamento têm precedência. */
+    GameStatus(boolean inCheck, int legalMoveCount, State draw) {
+        this.inCheck = inCheck;
+        this.legalMoveCount = legalMoveCount;
+        if (legalMoveCount == 0) state = inCheck ? State.CHECKMATE : State.STALEMATE;
+        else state = draw != null ? draw : State.ONGOING;
+    }
+
+    public State state() { return state; }
+    public boolean isCheck() { return inCheck; }
+    public boolean isCheckmate() { return state == State.CHECKMATE; }
+    public boolean isStalemate() { return state == State.STALEMATE; }
+    public boolean isDraw() { return state != State.ONGOING && state != State.CHECKMATE; }
+    public boolean isGameOver() { return state != State.ONGOING; }
+    public int legalMoveCount() { return legalMoveCount; }
+
+    @Override
+    public String toString() {
+        return state + (inCheck ? " (xeque)" : "") + ", " + legalMoveCount + " lances";
+    }
+}
@@ -0,0 +1,218 @@
+/**
+ * MoveGenerator.java
+ * Gerador de lances LEGAIS sobre os bitboards do Board, escrevendo lances codificados
+ * (PackedMove) num MoveList reutilizável — sem List<Position>, objetos Move ou cópias.
+ *
+ * A legalidade é resolvida uma vez por posição, sem aplicar lances:
+ * - xeques: atacantes do rei; em xeque duplo só o rei pode mover;
+ *   em xeque simples os destinos ficam restritos à "máscara de evasão"
+ *   (capturar o atacante ou bloquear o raio);
+ * - cravadas: peça entre o rei e um deslizante inimigo só anda na linha da cravada;
+ * - rei: destinos testados com o rei removido da ocupação (não "foge" no raio);
+ * - en passant: verificado removendo os dois peões (xeque descoberto na fileira).
+ *
+ * Modo só-capturas (busca de quiescência): apenas capturas, en passant e promoções.
+ *
+ * Regras iguais às de Game: roque pelas flags de movimento do rei/torre, en passant
+ * só com peão adversário atrás da casa alvo, e o rei inimigo nunca é "capturável".
+ */
+package controller;
+
+import model.board.Attacks;
+import model.board.Board;
+import model.board.MoveList;
+import model.board.PackedMove;
+import model.board.Position;
+import model.board.Zobrist;
+import model.pieces.Piece;
+
+final class MoveGenerator {
+
+    private MoveGenerator() { /* utilitário */ }
+
+    /**
+     * Gera os lances legais do lado a mover cujas origens estão em fromMask
+     * (use -1L para todas as peças). A lista é limpa antes.
+     */
+    static void generateLegal(Game game, MoveList out, long fromMask) {
+        generateLegal(game, out, fromMask, false);
+    }
+
+    /**
+     * Como generateLegal(game, out, fromMask), mas com capturesOnly = true só gera
+     * capturas (inclusive en passant) e promoções.
+     */
+    static void generateLegal(Game game, MoveList out, long fromMask, boolean capturesOnly) {
+        out.clear();
+        Board board = game.board();
+        boolean white = game.whiteToMove();
+        int ksq = board.kingSquare(white);
+        if (ksq < 0) return; // posição inválida (sem rei): nenhum lance
+
+        long own = board.colorBitboard(white);
+        long enemyAll = board.colorBitboard(!white);
+        long enemy = enemyAll & ~board.bitboard(!white, Piece.KING);
+        long occ = board.occupied();
+        long checkers = board.attackersTo(ksq, occ) & enemyAll;
+
+        // ------- Rei: nunca para casa atacada (com o rei fora da ocupação) -------
+        if ((fromMask & (1L << ksq)) != 0) {
+            long kingTargets = Attacks.king(ksq) & (capturesOnly ? enemy : ~own & ~board.bitboard(!white, Piece.KING));
+            long occNoKing = occ ^ (1L << ksq);
+            while (kingTargets != 0) {
+                int to = Long.numberOfTrailingZeros(kingTargets);
+                kingTargets &= kingTargets - 1;
+                if ((board.attackersTo(to, occNoKing) & enemyAll) == 0) {
+                    int flags = (enemy & (1L << to)) != 0 ? PackedMove.CAPTURE : PackedMove.QUIET;
+                    out.add(PackedMove.encode(ksq, to, flags));
+                }
+            }
+            if (checkers == 0 && !capturesOnly) generateCastling(game, board, white, ksq, occ, out);
+        }
+
+        // Xeque duplo: só o rei se move
+        if (Long.bitCount(checkers) > 1) return;
+
+        // Máscara de evasão: capturar o atacante ou interpor no raio
+        long checkMask = -1L;
+        if (checkers != 0) {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | Attacks.between(ksq, checker);
+        }
+
+        long pinned = pinnedPieces(board, white, ksq, own, occ);
+        long targets = (capturesOnly ? enemy : ~own & ~board.bitboard(!white, Piece.KING)) & checkMask;
+
+        generatePawnMoves(game, board, white, ksq, enemy, enemyAll, occ, checkMask, pinned, out, fromMask, capturesOnly);
+
+        long pieces = own & fromMask & ~board.bitboard(white, Piece.PAWN) & ~board.bitboard(white, Piece.KING);
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            long attacks;
+            switch (board.get(from).getType()) {
+                case Piece.KNIGHT -> attacks = Attacks.knight(from);
+                case Piece.BISHOP -> attacks = Attacks.bishop(from, occ);
+                case Piece.ROOK -> attacks = Attacks.rook(from, occ);
+                default -> attacks = Attacks.queen(from, occ);
+            }
+            attacks &= targets;
+            if ((pinned & (1L << from)) != 0) attacks &= Attacks.line(ksq, from);
+            addMoves(out, from, attacks, enemy);
+        }
+    }
+
+    /** Peças próprias que são a única barreira entre o rei e um deslizante inimigo. */
+    private static long pinnedPieces(Board board, boolean white, int ksq, long own, long occ) {
+        long enemyOcc = board.colorBitboard(!white);
+        long queens = board.bitboard(!white, Piece.QUEEN);
+        long snipers = (Attacks.rook(ksq, enemyOcc) & (board.bitboard(!white, Piece.ROOK) | queens))
+                | (Attacks.bishop(ksq, enemyOcc) & (board.bitboard(!white, Piece.BISHOP) | queens));
+        long pinned = 0L;
+        while (snipers != 0) {
+            int s = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+            long blockers = Attacks.between(ksq, s) & occ;
+            if (Long.bitCount(blockers) == 1 && (blockers & own) != 0) pinned |= blockers;
+        }
+        return pinned;
+    }
+
+    private static void generatePawnMoves(Game game, Board board, boolean white, int ksq, long enemy,
+                                          long enemyAll, long occ, long checkMask, long pinned,
+                                          MoveList out, long fromMask, boolean capturesOnly) {
+        long pawns = board.bitboard(white, Piece.PAWN) & fromMask;
+        int push = white ? -8 : 8;
+        int startRow = white ? 6 : 1;
+        int promoRow = white ? 0 : 7;
+        Position ep = game.enPassantTarget();
+        int epSq = -1;
+        if (ep != null) {
+            // Só vale se houver peão adversário atrás da casa alvo
+            Piece victim = board.get(ep.getSquare() - push);
+            if (victim != null && victim.getType() == Piece.PAWN && victim.isWhite() != white) {
+                epSq = ep.getSquare();
+            }
+        }
+
+        while (pawns != 0) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = checkMask;
+            if ((pinned & (1L << from)) != 0) allowed &= Attacks.line(ksq, from);
+
+            int one = from + push;
+            if ((occ & (1L << one)) == 0) {
+                if ((allowed & (1L << one)) != 0) {
+                    if ((one >>> 3) == promoRow) addPromotions(out, from, one, 0);
+                    else if (!capturesOnly) out.add(PackedMove.encode(from, one, PackedMove.QUIET));
+                }
+                int two = one + push;
+                if (!capturesOnly && (from >>> 3) == startRow && (occ & (1L << two)) == 0 && (allowed & (1L << two)) != 0) {
+                    out.add(PackedMove.encode(from, two, PackedMove.DOUBLE_PUSH));
+                }
+            }
+
+            long attacks = Attacks.pawn(white, from);
+            long caps = attacks & enemy & allowed;
+            while (caps != 0) {
+                int to = Long.numberOfTrailingZeros(caps);
+                caps &= caps - 1;
+                if ((to >>> 3) == promoRow) addPromotions(out, from, to, PackedMove.CAPTURE);
+                else out.add(PackedMove.encode(from, to, PackedMove.CAPTURE));
+            }
+            if (epSq >= 0 && (attacks & (1L << epSq)) != 0
+                    && enPassantIsLegal(board, white, ksq, from, epSq, epSq - push, enemyAll, occ)) {
+                out.add(PackedMove.encode(from, epSq, PackedMove.EN_PASSANT));
+            }
+        }
+    }
+
+    /**
+     * En passant remove duas peças da mesma fileira/diagonal de uma vez; em vez de
+     * casos especiais, refaz a consulta de ataque ao rei com a ocupação resultante
+     * (cobre cravada, xeque descoberto na fileira e evasão de xeque pelo peão).
+     */
+    private static boolean enPassantIsLegal(Board board, boolean white, int ksq, int from, int to,
+                                            int victim, long enemyAll, long occ) {
+        long after = (occ ^ (1L << from) ^ (1L << victim)) | (1L << to);
+        long attackers = board.attackersTo(ksq, after) & enemyAll & ~(1L << victim);
+        return attackers == 0;
+    }
+
+    /** Roque: rei e torre sem mover, caminho livre, rei fora de xeque e sem passar por casa atacada. */
+    private static void generateCastling(Game game, Board board, boolean white, int kingSq, long occ, MoveList out) {
+        int rights = game.castlingRights();
+        int kingSide = white ? Zobrist.CASTLE_WHITE_KING : Zobrist.CASTLE_BLACK_KING;
+        int queenSide = white ? Zobrist.CASTLE_WHITE_QUEEN : Zobrist.CASTLE_BLACK_QUEEN;
+        if ((rights & (kingSide | queenSide)) == 0) return;
+
+        int base = kingSq & ~7; // a-file da fileira do rei
+        if ((rights & kingSide) != 0
+                && (occ & ((1L << (base + 5)) | (1L << (base + 6)))) == 0
+                && !board.isAttacked(base + 5, !white) && !board.isAttacked(base + 6, !white)) {
+            out.add(PackedMove.encode(kingSq, base + 6, PackedMove.CASTLE_KING));
+        }
+        if ((rights & queenSide) != 0
+                && (occ & ((1L << (base + 1)) | (1L << (base + 2)) | (1L << (base + 3)))) == 0
+                && !board.isAttacked(base + 3, !white) && !board.isAttacked(base + 2, !white)) {
+            out.add(PackedMove.encode(kingSq, base + 2, PackedMove.CASTLE_QUEEN));
+        }
+    }
+
+    private static void addMoves(MoveList out, int from, long targets, long enemy) {
+        while (targets != 0) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            int flags = (enemy & (1L << to)) != 0 ? PackedMove.CAPTURE : PackedMove.QUIET;
+            out.add(PackedMove.encode(from, to, flags));
+        }
+    }
+
+    private static void addPromotions(MoveList out, int from, int to, int captureFlag) {
+        out.add(PackedMove.encode(from, to, PackedMove.PROMO_QUEEN | captureFlag));
+        out.add(PackedMove.encode(from, to, PackedMove.PROMO_ROOK | captureFlag));
+        out.add(PackedMove.encode(from, to, PackedMove.PROMO_BISHOP | captureFlag));
+        out.add(PackedMove.encode(from, to, PackedMove.PROMO_KNIGHT | captureFlag));
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * Perft.java
+ * Contagem de nós folha até uma profundidade (verificação e benchmark do gerador).
+ *
+ * Modos:
+ * - perft simples (contagem em massa no último nível)
+ * - divide: contagem por lance da raiz (para comparar com outro motor e achar o erro)
+ * - hash: memoriza subárvores por chave Zobrist + profundidade (tabela sem locks)
+ * - paralelo: divide os lances da raiz entre as threads de um ForkJoinPool
+ *
+ * Uso: java controller.Perft [--divide] [--hash MB] [--threads N] [--suite] [profundidade] [fen]
+ */
+package controller;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import model.board.MoveList;
+import model.board.PackedMove;
+
+public final class Perft {
+
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Posições de referência: nome, FEN, profundidade, nós esperados
+    private static final Object[][] SUITE = {
+        {"Inicial", START_FEN, 5, 4_865_609L},
+        {"Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 4, 4_085_603L},
+        {"Posição 3 (en passant)", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 5, 674_624L},
+        {"Posição 4 (promoções)", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 4, 422_333L},
+        {"Posição 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 4, 2_103_487L},
+        {"Posição 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 4, 3_894_594L},
+        {"EP ilegal (cravada)", "3k4/3p4/8/K1P4r/8/8/8/8 b - - 0 1", 6, 1_134_888L},
+        {"EP ilegal (diagonal)", "8/8/4k3/8/2p5/8/B2P2K1/8 w - - 0 1", 6, 1_015_133L},
+        {"EP dá xeque", "8/8/1k6/2b5/2pP4/8/5K2/8 b - d3 0 1", 6, 1_440_467L},
+        {"Roque curto dá xeque", "5k2/8/8/8/8/8/8/4K2R w K - 0 1", 6, 661_072L},
+        {"Roque longo dá xeque", "3k4/8/8/8/8/8/8/R3K3 w Q - 0 1", 6, 803_711L},
+        {"Roque e direitos", "r3k2r/1b4bq/8/8/8/8/7B/R3K2R w KQkq - 0 1", 4, 1_274_206L},
+        {"Roque impedido", "r3k2r/8/3Q4/8/8/5q2/8/R3K2R b KQkq - 0 1", 4, 1_720_476L},
+        {"Promoção saindo do xeque", "2K2r2/4P3/8/8/8/8/8/3k4 w - - 0 1", 6, 3_821_001L},
+        {"Xeque descoberto", "8/8/1P2K3/8/2n5/1q6/8/5k2 b - - 0 1", 5, 1_004_658L},
+        {"Promoção dá xeque", "4k3/1P6/8/8/8/8/K7/8 w - - 0 1", 6, 217_342L},
+        {"Subpromoção dá xeque", "8/P1k5/K7/8/8/8/8/8 w - - 0 1", 6, 92_683L},
+        {"Auto-afogamento", "K1k5/8/P7/8/8/8/8/8 w - - 0 1", 6, 2_217L},
+        {"Afogamento e mate", "8/k1P5/8/1K6/8/8/8/8 w - - 0 1", 7, 567_584L},
+        {"Afogamento e mate 2", "8/8/2k5/5q2/5n2/8/5K2/8 b - - 0 1", 4, 23_527L},
+    };
+
+    // Tabela de hash sem locks: keys[i] guarda (chave ^ nós) para detectar escrita concorrente
+    private final long[] hashKeys;
+    private final long[] hashCounts;
+    private final int hashMask;
+
+    /** Perft sem tabela de hash. */
+    public Perft() {
+        this(0);
+    }
+
+    /** Perft com tabela de hash de aproximadamente hashMb megabytes (0 = desligada). */
+    public Perft(int hashMb) {
+        if (hashMb <= 0) {
+            hashKeys = hashCounts = null;
+            hashMask = 0;
+        } else {
+            long entries = Long.highestOneBit((long) hashMb * 1024 * 1024 / 16);
+            int size = (int) Math.min(entries, 1 << 30);
+            hashKeys = new long[size];
+            hashCounts = new long[size];
+            hashMask = size - 1;
+        }
+    }
+
+    /** Conta as folhas a partir da posição atual de game (o jogo é restaurado ao final). */
+    public long count(Game game, int depth) {
+        if (depth <= 0) return 1;
+        MoveList[] lists = new MoveList[depth + 1];
+        for (int i = 0; i < lists.length; i++) lists[i] = new MoveList();
+        return count(game, depth, lists);
+    }
+
+    private long count(Game game, int depth, MoveList[] lists) {
+        MoveList moves = lists[depth];
+        game.generateLegalMoves(moves);
+        if (depth == 1) return moves.size();
+
+        long tag = 0L;
+        if (hashKeys != null) {
+            tag = game.zobristKey() ^ (depth * 0x9E3779B97F4A7C15L);
+            int idx = (int) tag & hashMask;
+            long nodes = hashCounts[idx];
+            if ((hashKeys[idx] ^ nodes) == tag) return nodes;
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i));
+            nodes += count(game, depth - 1, lists);
+            game.unmakeMove();
+        }
+
+        if (hashKeys != null) {
+            int idx = (int) tag & hashMask;
+            hashCounts[idx] = nodes;
+            hashKeys[idx] = tag ^ nodes;
+        }
+        return nodes;
+    }
+
+    /** Contagem por lance da raiz (notação coordenada, ex. "e2e4"), na ordem de geração. */
+    public Map<String, Long> divide(Game game, int depth) {
+        Map<String, Long> out = new LinkedHashMap<>();
+        MoveList root = new MoveList();
+        game.generateLegalMoves(root);
+        for (int i = 0; i < root.size(); i++) {
+            int move = root.get(i);
+            game.makeMove(move);
+            out.put(PackedMove.toString(move), count(game, depth - 1));
+            game.unmakeMove();
+        }
+        return out;
+    }
+
+    /** Como count(), mas distribuindo os lances da raiz entre "threads" threads. */
+    public long countParallel(Game game, int depth, int threads) {
+        if (depth <= 1 || threads <= 1) return count(game, depth);
+
+        MoveList root = new MoveList();
+        game.generateLegalMoves(root);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<ForkJoinTask<Long>> tasks = new ArrayList<>();
+            for (int i = 0; i < root.size(); i++) {
+                int move = root.get(i);
+                tasks.add(pool.submit(() -> {
+                    Game local = game.snapshotShallow(); // cada tarefa com seu próprio tabuleiro
+                    local.makeMove(move);
+                    return count(local, depth - 1);
+                }));
+            }
+            long nodes = 0;
+            for (ForkJoinTask<Long> t : tasks) nodes += t.join();
+            return nodes;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // --------- Linha de comando ----------
+
+    public static void main(String[] args) {
+        boolean divide = false, suite = false;
+        int hashMb = 0, threads = 1, depth = 5;
+        String fen = START_FEN;
+
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--divide" -> divide = true;
+                case "--suite" -> suite = true;
+                case "--hash" -> hashMb = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> rest.add(args[i]);
+            }
+        }
+        if (!rest.isEmpty()) depth = Integer.parseInt(rest.get(0));
+        if (rest.size() > 1) fen = String.join(" ", rest.subList(1, rest.size()));
+
+        Perft perft = new Perft(hashMb);
+        if (suite) {
+            boolean allOk = true;
+            long totalNodes = 0, totalNanos = 0;
+            for (Object[] row : SUITE) {
+                Game g = Game.fromFen((String) row[1]);
+                int d = (Integer) row[2];
+                long expected = (Long) row[3];
+                long t0 = System.nanoTime();
+                long nodes = perft.countParallel(g, d, threads);
+                long nanos = System.nanoTime() - t0;
+                totalNodes += nodes;
+                totalNanos += nanos;
+                boolean ok = nodes == expected;
+                allOk &= ok;
+                System.out.printf("%-28s d=%d %,14d %s %s%n", row[0], d, nodes,
+                        ok ? "OK  " : "FALHOU (esperado " + expected + ")", rate(nodes, nanos));
+            }
+            System.out.println("Total: " + String.format("%,d", totalNodes) + " nós, " + rate(totalNodes, totalNanos));
+            if (!allOk) System.exit(1);
+            return;
+        }
+
+        Game g = Game.fromFen(fen);
+        long t0 = System.nanoTime();
+        long nodes;
+        if (divide) {
+            nodes = 0;
+            for (Map.Entry<String, Long> e : perft.divide(g, depth).entrySet()) {
+                System.out.println(e.getKey() + ": " + e.getValue());
+                nodes += e.getValue();
+            }
+            System.out.println();
+        } else {
+            nodes = perft.countParallel(g, depth, threads);
+        }
+        long nanos = System.nanoTime() - t0;
+        System.out.printf("perft(%d) = %,d  %s%n", depth, nodes, rate(nodes, nanos));
+    }
+
+    private static String rate(long nodes, long nanos) {
+        double secs = Math.max(nanos, 1) / 1e9;
+        return String.format("%.2fs, %,.0f nós/s", secs, nodes / secs);
+    }
+}
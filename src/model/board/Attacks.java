@@ -0,0 +1,205 @@
+/**
+ * Attacks.java
+ * Tabelas de ataque pré-calculadas para os bitboards do Board.
+ *
+ * Convenção de casas: sq = row * 8 + column (0 = a8, 63 = h1), igual a Position.
+ *
+ * Principais métodos:
+ * - knight/king/pawn: ataques de peças não deslizantes (consulta direta)
+ * - rook/bishop/queen: ataques de deslizantes via "magic bitboards"
+ * - between/line: casas entre duas casas alinhadas (xeques e cravadas)
+ *
+ * Os números mágicos abaixo foram gerados offline (busca aleatória esparsa) para
+ * esta convenção de casas; na carga da classe apenas preenchemos as tabelas.
+ */
+package model.board;
+
+public final class Attacks {
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64]; // [0] = brancas, [1] = pretas
+
+    private static final long[] ROOK_MASK = new long[64];
+    private static final long[] ROOK_MAGIC = {
+            0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+            0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+            0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+            0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+            0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+            0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+            0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+            0x0442000A00049020L, 0x2100040080020080L, 0x0800120400900148L, 0x0010040A00128541L,
+            0x2800804000800030L, 0x1010002000400041L, 0x4000200011004100L, 0x0610008410800800L,
+            0x0400802402800800L, 0xC100020080800400L, 0x0002000802000401L, 0x0182085882000401L,
+            0x0220204000808000L, 0x2860100040024022L, 0x0001002004110040L, 0x99101042000A0020L,
+            0x0004080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+            0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+            0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+            0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+            0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L
+    };
+    private static final int[] ROOK_SHIFT = new int[64];
+    private static final int[] ROOK_OFFSET = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASK = new long[64];
+    private static final long[] BISHOP_MAGIC = {
+            0xA010041108003100L, 0x006082020A002900L, 0x6810010619200000L, 0x08281A0520000408L,
+            0x0001104001000400L, 0x0018901008048400L, 0x00040A0210245280L, 0x000200210808A402L,
+            0x9140048410821200L, 0x0800091010820041L, 0x20504804832202C0L, 0x0100091401081000L,
+            0x8021011140000012L, 0x0810020804450400L, 0x208B0542109008A2L, 0x0080084A08040204L,
+            0x0040E2A80811244CL, 0x2505022008008108L, 0x0430220100420040L, 0x010A040420220040L,
+            0x1105000290400000L, 0x0093001200822120L, 0x4000A62048043004L, 0x280120048A015004L,
+            0x006090002A020814L, 0x44042000240800D0L, 0x01102800040A4400L, 0x1004080080220040L,
+            0x0001001011004024L, 0x0010044000805040L, 0x0914041200820100L, 0x0004821012821480L,
+            0x0024040500C05021L, 0x0088611002080200L, 0x0116080A00040020L, 0x4000020080080080L,
+            0x2450450140840040L, 0x0000880201484100L, 0x0222020404020092L, 0x8081110600002E00L,
+            0x2842101105000801L, 0x1100809008001025L, 0x00020202221C0400L, 0x0422014022009020L,
+            0x0210046102100C00L, 0xC004008082029102L, 0x00AA461801101200L, 0x0404080080201108L,
+            0x020542108C205002L, 0x0410544804100100L, 0x0040910841100000L, 0x0400200042021100L,
+            0x00004204850400C0L, 0x0200100410A42102L, 0x1040020801210102L, 0x0805040410420000L,
+            0x2884804130100200L, 0x800C262201242000L, 0x1058000194108800L, 0x0014221054420204L,
+            0x0104000012A02200L, 0x0200881003300100L, 0x0140400202840100L, 0x0402020801010201L
+    };
+    private static final int[] BISHOP_SHIFT = new int[64];
+    private static final int[] BISHOP_OFFSET = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    // [a * 64 + b]: casas estritamente entre a e b / linha inteira por a e b (0 se não alinhadas)
+    private static final long[] BETWEEN = new long[64 * 64];
+    private static final long[] LINE = new long[64 * 64];
+
+    private static final int[][] ROOK_DIRS = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+    private static final int[][] BISHOP_DIRS = {{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
+
+    static {
+        int[][] jumps = {{-2, -1}, {-2, 1}, {-1, -2}, {-1, 2}, {1, -2}, {1, 2}, {2, -1}, {2, 1}};
+        for (int sq = 0; sq < 64; sq++) {
+            int r = sq >>> 3, c = sq & 7;
+            for (int[] d : jumps) KNIGHT[sq] |= bit(r + d[0], c + d[1]);
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    if (dr != 0 || dc != 0) KING[sq] |= bit(r + dr, c + dc);
+                }
+            }
+            // Brancas sobem (row--), pretas descem (row++)
+            PAWN[0][sq] = bit(r - 1, c - 1) | bit(r - 1, c + 1);
+            PAWN[1][sq] = bit(r + 1, c - 1) | bit(r + 1, c + 1);
+        }
+
+        ROOK_TABLE = initMagics(ROOK_DIRS, ROOK_MASK, ROOK_MAGIC, ROOK_SHIFT, ROOK_OFFSET);
+        BISHOP_TABLE = initMagics(BISHOP_DIRS, BISHOP_MASK, BISHOP_MAGIC, BISHOP_SHIFT, BISHOP_OFFSET);
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) continue;
+                long ab = (1L << a) | (1L << b);
+                if ((rook(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a * 64 + b] = rook(a, ab) & rook(b, ab);
+                    LINE[a * 64 + b] = (rook(a, 0L) & rook(b, 0L)) | ab;
+                } else if ((bishop(a, 0L) & (1L << b)) != 0) {
+                    BETWEEN[a * 64 + b] = bishop(a, ab) & bishop(b, ab);
+                    LINE[a * 64 + b] = (bishop(a, 0L) & bishop(b, 0L)) | ab;
+                }
+            }
+        }
+    }
+
+    private Attacks() { /* utilitário */ }
+
+    // --------- Consultas ----------
+
+    public static long knight(int sq) { return KNIGHT[sq]; }
+
+    public static long king(int sq) { return KING[sq]; }
+
+    /** Casas atacadas por um peão da cor indicada que está em sq. */
+    public static long pawn(boolean white, int sq) { return PAWN[white ? 0 : 1][sq]; }
+
+    public static long rook(int sq, long occupied) {
+        int idx = (int) (((occupied & ROOK_MASK[sq]) * ROOK_MAGIC[sq]) >>> ROOK_SHIFT[sq]);
+        return ROOK_TABLE[ROOK_OFFSET[sq] + idx];
+    }
+
+    public static long bishop(int sq, long occupied) {
+        int idx = (int) (((occupied & BISHOP_MASK[sq]) * BISHOP_MAGIC[sq]) >>> BISHOP_SHIFT[sq]);
+        return BISHOP_TABLE[BISHOP_OFFSET[sq] + idx];
+    }
+
+    public static long queen(int sq, long occupied) {
+        return rook(sq, occupied) | bishop(sq, occupied);
+    }
+
+    /** Casas estritamente entre a e b se estiverem na mesma linha/coluna/diagonal; senão 0. */
+    public static long between(int a, int b) { return BETWEEN[a * 64 + b]; }
+
+    /** Linha/coluna/diagonal inteira que passa por a e b (inclui ambas); 0 se não alinhadas. */
+    public static long line(int a, int b) { return LINE[a * 64 + b]; }
+
+    // --------- Inicialização dos magics ----------
+
+    private static long bit(int r, int c) {
+        return (r >= 0 && r < 8 && c >= 0 && c < 8) ? 1L << (r * 8 + c) : 0L;
+    }
+
+    /** Ataques de um deslizante calculados raio a raio (referência para os magics). */
+    private static long slidingAttacks(int sq, long occupied, int[][] dirs) {
+        long attacks = 0L;
+        for (int[] d : dirs) {
+            int r = (sq >>> 3) + d[0], c = (sq & 7) + d[1];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                long b = 1L << (r * 8 + c);
+                attacks |= b;
+                if ((occupied & b) != 0) break;
+                r += d[0];
+                c += d[1];
+            }
+        }
+        return attacks;
+    }
+
+    /** Casas que podem bloquear o raio (as bordas não importam para o índice). */
+    private static long relevantMask(int sq, int[][] dirs) {
+        long mask = 0L;
+        for (int[] d : dirs) {
+            int r = (sq >>> 3) + d[0], c = (sq & 7) + d[1];
+            while (r + d[0] >= 0 && r + d[0] < 8 && c + d[1] >= 0 && c + d[1] < 8) {
+                mask |= 1L << (r * 8 + c);
+                r += d[0];
+                c += d[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long[] initMagics(int[][] dirs, long[] masks, long[] magics,
+                                     int[] shifts, int[] offsets) {
+        int total = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            masks[sq] = relevantMask(sq, dirs);
+            shifts[sq] = 64 - Long.bitCount(masks[sq]);
+            offsets[sq] = total;
+            total += 1 << Long.bitCount(masks[sq]);
+        }
+
+        long[] table = new long[total];
+        boolean[] filled = new boolean[total];
+        for (int sq = 0; sq < 64; sq++) {
+            long mask = masks[sq];
+            long sub = 0L;
+            // Enumera todos os subconjuntos da máscara (Carry-Rippler)
+            do {
+                int idx = offsets[sq] + (int) ((sub * magics[sq]) >>> shifts[sq]);
+                long attacks = slidingAttacks(sq, sub, dirs);
+                if (filled[idx] && table[idx] != attacks) {
+                    throw new IllegalStateException("Magic inválido para a casa " + sq);
+                }
+                filled[idx] = true;
+                table[idx] = attacks;
+                sub = (sub - mask) & mask;
+            } while (sub != 0);
+        }
+        return table;
+    }
+}
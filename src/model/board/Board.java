@@ -5,19 +5,44 @@
  * Representa o tabuleiro de xadrez (8x8).
  *
  * Principais métodos:
- * - get/set/remove: manipulação de peças nas posições
+ * - get/set/remove: manipulação de peças nas posições (Position ou índice 0..63)
  * - isInside/isEmpty: validações de posição
  * - placePiece: usado no setup inicial
+ * - bitboard/colorBitboard/occupied: conjuntos de peças em bitboards (bit = row * 8 + col)
+ * - isAttacked/attackersTo: detecção de ataque via tabelas de Attacks
+ * - see: troca estática (saldo material de uma sequência de capturas numa casa)
  */
 package model.board;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import model.pieces.Piece;
 
 public class Board {
 
-    private final Piece[][] grid = new Piece[8][8];
+    // Tabuleiro plano: índice = row * 8 + column (0 = a8, 63 = h1)
+    private final Piece[] squares = new Piece[64];
+
+    // Bitboards mantidos em sincronia com as casas: 12 conjuntos por peça (Piece.bitboardIndex)
+    // e ocupação por cor ([0] = brancas, [1] = pretas)
+    private final long[] pieceBB = new long[12];
+    private final long[] colorBB = new long[2];
+    private long occupied;
+
+    // Parte da chave Zobrist referente às peças (atualizada em toggle)
+    private long hash;
+    // Chave Zobrist só dos peões (estrutura de peões; ver ai.PawnHashTable)
+    private long pawnHash;
+
+    // Material + posição (brancas - pretas) de meio-jogo e de final, e a fase do jogo,
+    // somados em toggle a partir da PieceSquareTable
+    private int mgScore;
+    private int egScore;
+    private int phase;
+
+    // Lista de saldos da SEE, reaproveitada (no máximo 32 peças capturam na casa)
+    private final int[] seeGain = new int[33];
 
     /** Verifica se a posição está dentro do tabuleiro (0..7). */
     public boolean isInside(Position p) {
@@ -26,7 +51,12 @@ public class Board {
 
     /** Retorna a peça na posição ou null se vazio/fora. */
     public Piece get(Position p) {
-        return isInside(p) ? grid[p.getRow()][p.getColumn()] : null;
+        return isInside(p) ? squares[p.getSquare()] : null;
+    }
+
+    /** Retorna a peça na casa 0..63 (sem validação de limites). */
+    public Piece get(int sq) {
+        return squares[sq];
     }
 
     /**
@@ -35,18 +65,32 @@ public class Board {
      */
     public void set(Position p, Piece piece) {
         if (!isInside(p)) return;
-        grid[p.getRow()][p.getColumn()] = piece;
+        set(p.getSquare(), piece);
+    }
+
+    /** Versão por índice 0..63 de set(Position, Piece). */
+    public void set(int sq, Piece piece) {
+        Piece old = squares[sq];
+        if (old != null) toggle(old, sq);
+        squares[sq] = piece;
         if (piece != null) {
+            toggle(piece, sq);
             // Mantém referência de posição da peça sincronizada
-            piece.setPosition(p);
+            piece.setPosition(Position.of(sq));
         }
     }
 
     /** Remove e retorna a peça da posição (ou null). */
     public Piece remove(Position p) {
         if (!isInside(p)) return null;
-        Piece old = grid[p.getRow()][p.getColumn()];
-        grid[p.getRow()][p.getColumn()] = null;
+        return remove(p.getSquare());
+    }
+
+    /** Remove e retorna a peça da casa 0..63 (ou null). */
+    public Piece remove(int sq) {
+        Piece old = squares[sq];
+        squares[sq] = null;
+        if (old != null) toggle(old, sq);
         return old;
     }
 
@@ -55,6 +99,11 @@ public class Board {
         return get(p) == null;
     }
 
+    /** Retorna true se a casa 0..63 estiver vazia. */
+    public boolean isEmpty(int sq) {
+        return squares[sq] == null;
+    }
+
     /** Atalho usado no setup inicial. */
     public void placePiece(Piece piece, Position p) {
         set(p, piece);
@@ -62,21 +111,183 @@ public class Board {
 
     /** Limpa completamente o tabuleiro. */
     public void clear() {
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                grid[r][c] = null;
-            }
+        Arrays.fill(squares, null);
+        Arrays.fill(pieceBB, 0L);
+        Arrays.fill(colorBB, 0L);
+        occupied = 0L;
+        hash = 0L;
+        pawnHash = 0L;
+        mgScore = egScore = phase = 0;
+    }
+
+    // --------- Bitboards ----------
+
+    /** Liga/desliga o bit da peça em sq em todos os conjuntos (e na chave Zobrist e no material). */
+    private void toggle(Piece piece, int sq) {
+        long b = 1L << sq;
+        int index = piece.bitboardIndex();
+        int sign = (pieceBB[index] & b) == 0 ? 1 : -1; // entrando ou saindo da casa
+        mgScore += sign * PieceSquareTable.mg(index, sq);
+        egScore += sign * PieceSquareTable.eg(index, sq);
+        phase += sign * PieceSquareTable.phase(index);
+        pieceBB[index] ^= b;
+        colorBB[piece.isWhite() ? 0 : 1] ^= b;
+        occupied ^= b;
+        hash ^= Zobrist.piece(index, sq);
+        if (piece.getType() == Piece.PAWN) pawnHash ^= Zobrist.piece(index, sq);
+    }
+
+    /**
+     * Material + bônus de posição, brancas menos pretas, misturando as tabelas de
+     * meio-jogo e de final pela fase atual (tudo mantido incrementalmente).
+     */
+    public int materialPst() {
+        return PieceSquareTable.taper(mgScore, egScore, phase);
+    }
+
+    public int mgScore() { return mgScore; }
+    public int egScore() { return egScore; }
+
+    /** Fase do jogo: 0 (só reis e peões) até PieceSquareTable.MAX_PHASE (todas as peças). */
+    public int phase() { return phase; }
+
+    /** Chave Zobrist apenas dos peões (as duas cores). */
+    public long pawnHash() {
+        return pawnHash;
+    }
+
+    /** Chave Zobrist das peças (sem lado a mover, roques e en passant — ver Game.zobristKey). */
+    public long hash() {
+        return hash;
+    }
+
+    /** Conjunto de casas ocupadas pela peça de índice 0..11 (ver Piece.bitboardIndex). */
+    public long bitboard(int index) {
+        return pieceBB[index];
+    }
+
+    /** Conjunto de casas ocupadas pelo tipo (Piece.PAWN..KING) da cor indicada. */
+    public long bitboard(boolean white, int type) {
+        return pieceBB[white ? type : type + 6];
+    }
+
+    public long colorBitboard(boolean white) {
+        return colorBB[white ? 0 : 1];
+    }
+
+    public long occupied() {
+        return occupied;
+    }
+
+    /**
+     * True se a casa sq (0..63) é atacada por alguma peça da cor byWhite.
+     * Usa o truque da simetria: lança os ataques a partir de sq e intersecta
+     * com as peças atacantes correspondentes.
+     */
+    public boolean isAttacked(int sq, boolean byWhite) {
+        int o = byWhite ? 0 : 6;
+        if ((Attacks.pawn(!byWhite, sq) & pieceBB[o + Piece.PAWN]) != 0) return true;
+        if ((Attacks.knight(sq) & pieceBB[o + Piece.KNIGHT]) != 0) return true;
+        if ((Attacks.king(sq) & pieceBB[o + Piece.KING]) != 0) return true;
+        long queens = pieceBB[o + Piece.QUEEN];
+        if ((Attacks.rook(sq, occupied) & (pieceBB[o + Piece.ROOK] | queens)) != 0) return true;
+        return (Attacks.bishop(sq, occupied) & (pieceBB[o + Piece.BISHOP] | queens)) != 0;
+    }
+
+    /**
+     * Todas as peças (das duas cores) que atacam sq, considerando a ocupação occ
+     * para os deslizantes (permite "remover" peças para ver raios-x).
+     */
+    public long attackersTo(int sq, long occ) {
+        long queens = pieceBB[Piece.QUEEN] | pieceBB[Piece.QUEEN + 6];
+        return (Attacks.pawn(false, sq) & pieceBB[Piece.PAWN])
+                | (Attacks.pawn(true, sq) & pieceBB[Piece.PAWN + 6])
+                | (Attacks.knight(sq) & (pieceBB[Piece.KNIGHT] | pieceBB[Piece.KNIGHT + 6]))
+                | (Attacks.king(sq) & (pieceBB[Piece.KING] | pieceBB[Piece.KING + 6]))
+                | (Attacks.rook(sq, occ) & (pieceBB[Piece.ROOK] | pieceBB[Piece.ROOK + 6] | queens))
+                | (Attacks.bishop(sq, occ) & (pieceBB[Piece.BISHOP] | pieceBB[Piece.BISHOP + 6] | queens));
+    }
+
+    /**
+     * Troca estática (SEE) do PackedMove move: saldo material, para quem joga, da
+     * sequência de capturas na casa de destino em que cada lado recaptura sempre com
+     * a peça menos valiosa (e pode parar quando continuar não compensa). Atacantes
+     * escondidos atrás de outros deslizantes (raios-x) entram à medida que a casa é
+     * recapturada; o rei só recaptura se o adversário não tiver mais atacantes.
+     * Lances quietos também valem: negativo significa que a peça fica perdida na casa.
+     * Ignora cravadas e promoções nas recapturas.
+     */
+    public int see(int move) {
+        int promotion = PackedMove.isPromotion(move) ? PackedMove.promotionType(move) : -1;
+        return see(PackedMove.from(move), PackedMove.to(move), promotion);
+    }
+
+    /**
+     * SEE do lance de from para to (ver see(int)); peão que chega à última fileira
+     * promove a dama e peão na diagonal para casa vazia é en passant.
+     */
+    public int see(int from, int to) {
+        Piece mover = squares[from];
+        boolean promotes = mover.getType() == Piece.PAWN && (to < 8 || to >= 56);
+        return see(from, to, promotes ? Piece.QUEEN : -1);
+    }
+
+    private int see(int from, int to, int promotion) {
+        Piece mover = squares[from];
+        boolean white = mover.isWhite();
+        int[] gain = seeGain;
+        gain[0] = 0;
+        long occ = occupied ^ (1L << from);
+
+        Piece victim = squares[to];
+        if (victim != null) {
+            gain[0] = PieceSquareTable.pieceValue(victim.getType());
+        } else if (mover.getType() == Piece.PAWN && (from & 7) != (to & 7)) {
+            gain[0] = PieceSquareTable.pieceValue(Piece.PAWN); // en passant
+            occ ^= 1L << ((from & ~7) | (to & 7));
+        }
+        int onSquare = PieceSquareTable.pieceValue(mover.getType());
+        if (promotion >= 0) {
+            onSquare = PieceSquareTable.pieceValue(promotion);
+            gain[0] += onSquare - PieceSquareTable.pieceValue(Piece.PAWN);
+        }
+
+        int d = 0;
+        boolean side = !white;
+        while (true) {
+            d++;
+            gain[d] = onSquare - gain[d - 1]; // saldo de side se recapturar (e a troca parar aí)
+            long attackers = attackersTo(to, occ) & occ; // occ revela os raios-x
+            long mine = attackers & colorBB[side ? 0 : 1];
+            if (mine == 0) break;
+            int o = side ? 0 : 6;
+            int type = Piece.PAWN;
+            while ((mine & pieceBB[o + type]) == 0) type++;
+            long bit = Long.lowestOneBit(mine & pieceBB[o + type]);
+            occ ^= bit;
+            if (type == Piece.KING && (attackersTo(to, occ) & occ & colorBB[side ? 1 : 0]) != 0) break;
+            onSquare = PieceSquareTable.pieceValue(type);
+            side = !side;
         }
+        // gain[d] não aconteceu (side não tinha com que recapturar); de trás para a frente,
+        // cada lado escolhe entre parar e recapturar
+        while (--d > 0) gain[d - 1] = -Math.max(-gain[d - 1], gain[d]);
+        return gain[0];
+    }
+
+    /** Casa (0..63) do rei da cor indicada, ou -1 se não houver rei. */
+    public int kingSquare(boolean white) {
+        long k = pieceBB[white ? Piece.KING : Piece.KING + 6];
+        return k == 0 ? -1 : Long.numberOfTrailingZeros(k);
     }
 
     /** Lista todas as peças de uma cor. */
     public List<Piece> pieces(boolean white) {
         List<Piece> out = new ArrayList<>();
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece pc = grid[r][c];
-                if (pc != null && pc.isWhite() == white) out.add(pc);
-            }
+        long bb = colorBB[white ? 0 : 1];
+        while (bb != 0) {
+            out.add(squares[Long.numberOfTrailingZeros(bb)]);
+            bb &= bb - 1;
         }
         return out;
     }
@@ -93,16 +304,22 @@ public class Board {
      */
     public Board copy() {
         Board b = new Board();
-        for (int r = 0; r < 8; r++) {
-            for (int c = 0; c < 8; c++) {
-                Piece p = grid[r][c];
-                if (p != null) {
-                    Piece cp = p.copyFor(b);                 // nova peça ligada ao Board "b"
-                    b.grid[r][c] = cp;                       // atribui diretamente (evita set() duplicado)
-                    cp.setPosition(new Position(r, c));      // sincroniza a posição do clone
-                }
+        for (int sq = 0; sq < 64; sq++) {
+            Piece p = squares[sq];
+            if (p != null) {
+                Piece cp = p.copyFor(b);                 // nova peça ligada ao Board "b"
+                b.squares[sq] = cp;                      // atribui diretamente (evita set() duplicado)
+                cp.setPosition(Position.of(sq));         // sincroniza a posição do clone
             }
         }
+        System.arraycopy(pieceBB, 0, b.pieceBB, 0, 12);
+        System.arraycopy(colorBB, 0, b.colorBB, 0, 2);
+        b.occupied = occupied;
+        b.hash = hash;
+        b.pawnHash = pawnHash;
+        b.mgScore = mgScore;
+        b.egScore = egScore;
+        b.phase = phase;
         return b;
     }
 }
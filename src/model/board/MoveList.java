@@ -0,0 +1,62 @@
+/**
+ * MoveList.java
+ * Lista de lances codificados (PackedMove) sobre um buffer int[] reutilizável.
+ * Pensada para ser alocada uma vez por ply da busca e limpa com clear().
+ */
+package model.board;
+
+import java.util.Arrays;
+
+public final class MoveList {
+
+    // 218 é o máximo conhecido de lances legais numa posição; folga para pseudo-lances
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        this.moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) moves = Arrays.copyOf(moves, size * 2);
+        moves[size++] = move;
+    }
+
+    public int get(int index) { return moves[index]; }
+
+    public void set(int index, int move) { moves[index] = move; }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public void clear() { size = 0; }
+
+    /** Remove o lance no índice trocando-o pelo último (não preserva a ordem). */
+    public void removeAt(int index) {
+        moves[index] = moves[--size];
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(PackedMove.toString(moves[i]));
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * PackedMove.java
+ * Codificação de lances em um int (16 bits usados), sem alocação.
+ *
+ * Layout: bits 0-5 = casa de origem, 6-11 = casa de destino, 12-15 = flags.
+ * Flags: 0 normal, 1 avanço duplo, 2 roque curto, 3 roque longo, 4 captura,
+ * 5 en passant, 8..11 promoção (N,B,R,Q), 12..15 promoção com captura.
+ *
+ * Use Game.toMove(int) para obter o model.board.Move equivalente (GUI).
+ */
+package model.board;
+
+import model.pieces.Piece;
+
+public final class PackedMove {
+
+    /** Valor reservado para "nenhum lance" (origem == destino nunca é um lance válido). */
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PUSH = 1;
+    public static final int CASTLE_KING = 2;
+    public static final int CASTLE_QUEEN = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMO_KNIGHT = 8;
+    public static final int PROMO_BISHOP = 9;
+    public static final int PROMO_ROOK = 10;
+    public static final int PROMO_QUEEN = 11;
+
+    private static final String PROMO_CHARS = "NBRQ";
+
+    private PackedMove() { /* utilitário */ }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int from(int move) { return move & 63; }
+
+    public static int to(int move) { return (move >>> 6) & 63; }
+
+    public static int flags(int move) { return (move >>> 12) & 15; }
+
+    public static boolean isCapture(int move) { return (move & (CAPTURE << 12)) != 0; }
+
+    public static boolean isPromotion(int move) { return (move & (PROMO_KNIGHT << 12)) != 0; }
+
+    public static boolean isCastle(int move) {
+        int f = flags(move);
+        return f == CASTLE_KING || f == CASTLE_QUEEN;
+    }
+
+    /** Tipo da peça promovida (Piece.KNIGHT..QUEEN); só faz sentido se isPromotion. */
+    public static int promotionType(int move) { return Piece.KNIGHT + (flags(move) & 3); }
+
+    /** 'N','B','R' ou 'Q' (mesma convenção de Game.move); só faz sentido se isPromotion. */
+    public static char promotionChar(int move) { return PROMO_CHARS.charAt(flags(move) & 3); }
+
+    /** Notação coordenada (ex.: e2e4, e7e8q). */
+    public static String toString(int move) {
+        String s = Position.of(from(move)).toString() + Position.of(to(move));
+        return isPromotion(move) ? s + Character.toLowerCase(promotionChar(move)) : s;
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * PieceSquareTable.java
+ * Valor de cada peça em cada casa (material + bônus de posição), em duas versões:
+ * meio-jogo (mg) e final (eg), misturadas pela fase do jogo ("tapered eval").
+ *
+ * As tabelas vêm do recurso pst.txt (veja o formato no próprio arquivo), procurado:
+ *   1) no arquivo indicado por -Dchess.pst=<caminho>
+ *   2) classpath: /resources/pst.txt
+ *   3) classpath: /pst.txt
+ *   4) disco:     resources/pst.txt
+ * Sem o arquivo, usa a tabela simples de antes (centro + avanço de peões, mg = eg).
+ *
+ * O Board soma mg, eg e a fase incrementalmente em toggle(): a avaliação de uma
+ * folha vira a leitura de poucos ints (Board.materialPst), sem varrer as 64 casas.
+ *
+ * Convenção: mg/eg(índice 0..11, casa 0..63) já vêm com sinal —
+ * positivo para peças brancas, negativo para pretas.
+ */
+package model.board;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import model.pieces.Piece;
+
+public final class PieceSquareTable {
+
+    /** Soma dos pesos de fase com todas as peças no tabuleiro (meio-jogo completo). */
+    public static final int MAX_PHASE = 24;
+
+    private static final String RESOURCE = "pst.txt";
+    private static final String[] TYPE_NAMES = {"pawn", "knight", "bishop", "rook", "queen", "king"};
+
+    // Valor nominal do rei para comparações (não entra na soma: os dois reis se anulam)
+    private static final int KING_VALUE = 20000;
+
+    private static final int[] MATERIAL_MG = new int[6];
+    private static final int[] MATERIAL_EG = new int[6];
+    private static final int[] PHASE = new int[6];
+    private static final int[] BONUS_MG = new int[6 * 64]; // [tipo * 64 + casa], visão das brancas
+    private static final int[] BONUS_EG = new int[6 * 64];
+
+    private static final int[] MG = new int[12 * 64];
+    private static final int[] EG = new int[12 * 64];
+
+    static {
+        if (!load()) loadDefaults();
+        for (int index = 0; index < 12; index++) {
+            boolean white = index < 6;
+            int type = index % 6;
+            for (int sq = 0; sq < 64; sq++) {
+                int mg = MATERIAL_MG[type] + positionBonus(type, white, sq);
+                int eg = MATERIAL_EG[type] + BONUS_EG[type * 64 + (white ? sq : sq ^ 56)];
+                MG[index * 64 + sq] = white ? mg : -mg;
+                EG[index * 64 + sq] = white ? eg : -eg;
+            }
+        }
+    }
+
+    private PieceSquareTable() { /* utilitário */ }
+
+    /** Meio-jogo: material + posição da peça de índice 0..11 (Piece.bitboardIndex) em sq, com sinal. */
+    public static int mg(int index, int sq) { return MG[index * 64 + sq]; }
+
+    /** Final: material + posição da peça de índice 0..11 em sq, com sinal. */
+    public static int eg(int index, int sq) { return EG[index * 64 + sq]; }
+
+    /** Peso da peça de índice 0..11 na fase do jogo. */
+    public static int phase(int index) { return PHASE[index % 6]; }
+
+    /** Mistura mg e eg pela fase (MAX_PHASE = só meio-jogo, 0 = só final). */
+    public static int taper(int mg, int eg, int phase) {
+        int p = Math.min(phase, MAX_PHASE);
+        return (mg * p + eg * (MAX_PHASE - p)) / MAX_PHASE;
+    }
+
+    /** Valor material (meio-jogo) por tipo (Piece.PAWN..Piece.KING). */
+    public static int pieceValue(int type) {
+        return type == Piece.KING ? KING_VALUE : MATERIAL_MG[type];
+    }
+
+    /** Bônus de posição de meio-jogo (sem sinal) de uma peça do tipo e cor dados em sq. */
+    public static int positionBonus(int type, boolean white, int sq) {
+        // Tabelas do ponto de vista das brancas; para as pretas espelha a fileira
+        return BONUS_MG[type * 64 + (white ? sq : sq ^ 56)];
+    }
+
+    // --------- Carga ----------
+
+    private static boolean load() {
+        try (InputStream in = open()) {
+            if (in == null) return false;
+            parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            return true;
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro lendo " + RESOURCE, e);
+        }
+    }
+
+    private static InputStream open() throws IOException {
+        String custom = System.getProperty("chess.pst");
+        if (custom != null) return new FileInputStream(custom);
+        InputStream in = PieceSquareTable.class.getResourceAsStream("/resources/" + RESOURCE);
+        if (in == null) in = PieceSquareTable.class.getResourceAsStream("/" + RESOURCE);
+        if (in == null) {
+            File f = new File("resources" + File.separator + RESOURCE);
+            if (f.exists()) in = new FileInputStream(f);
+        }
+        return in;
+    }
+
+    /** Lê as seções "material", "phase" e "<peça> mg|eg" (todas obrigatórias). */
+    private static void parse(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            int hash = line.indexOf('#');
+            if (hash >= 0) line = line.substring(0, hash);
+            for (String t : line.trim().split("\\s+")) {
+                if (!t.isEmpty()) tokens.add(t);
+            }
+        }
+
+        boolean[] seen = new boolean[3 + 12];
+        int i = 0;
+        while (i < tokens.size()) {
+            String name = tokens.get(i++);
+            if (name.equals("phase")) {
+                i = readInts(tokens, i, PHASE, 0, 6, name);
+                seen[0] = true;
+            } else if (name.equals("material")) {
+                boolean mg = stage(tokens, i++, name);
+                i = readInts(tokens, i, mg ? MATERIAL_MG : MATERIAL_EG, 0, 6, name);
+                seen[mg ? 1 : 2] = true;
+            } else {
+                int type = List.of(TYPE_NAMES).indexOf(name);
+                if (type < 0) throw new IllegalStateException(RESOURCE + ": seção desconhecida '" + name + "'");
+                boolean mg = stage(tokens, i++, name);
+                i = readInts(tokens, i, mg ? BONUS_MG : BONUS_EG, type * 64, 64, name);
+                seen[3 + type * 2 + (mg ? 0 : 1)] = true;
+            }
+        }
+        for (boolean s : seen) {
+            if (!s) throw new IllegalStateException(RESOURCE + ": seção ausente");
+        }
+    }
+
+    private static boolean stage(List<String> tokens, int i, String name) {
+        String s = i < tokens.size() ? tokens.get(i) : "";
+        if (!s.equals("mg") && !s.equals("eg")) {
+            throw new IllegalStateException(RESOURCE + ": esperado mg ou eg após '" + name + "'");
+        }
+        return s.equals("mg");
+    }
+
+    private static int readInts(List<String> tokens, int i, int[] dst, int offset, int count, String name) {
+        if (i + count > tokens.size()) throw new IllegalStateException(RESOURCE + ": valores faltando em '" + name + "'");
+        for (int k = 0; k < count; k++) {
+            try {
+                dst[offset + k] = Integer.parseInt(tokens.get(i + k));
+            } catch (NumberFormatException e) {
+                throw new IllegalStateException(RESOURCE + ": número inválido em '" + name + "': " + tokens.get(i + k));
+            }
+        }
+        return i + count;
+    }
+
+    /** Tabela simples (sem o recurso): centro + avanço de peões, igual no meio-jogo e no final. */
+    private static void loadDefaults() {
+        int[] values = {100, 320, 330, 500, 900, 0};
+        int[] phase = {0, 1, 1, 2, 4, 0};
+        System.arraycopy(values, 0, MATERIAL_MG, 0, 6);
+        System.arraycopy(values, 0, MATERIAL_EG, 0, 6);
+        System.arraycopy(phase, 0, PHASE, 0, 6);
+        for (int type = 0; type < 6; type++) {
+            for (int sq = 0; sq < 64; sq++) {
+                int r = sq >>> 3, c = sq & 7;
+                int bonus = 0;
+                if ((r == 3 || r == 4) && (c == 3 || c == 4)) bonus += 10;
+                else if (r >= 2 && r <= 5 && c >= 2 && c <= 5) bonus += 4;
+                if (type == Piece.PAWN) bonus += (7 - r) * 5;
+                BONUS_MG[type * 64 + sq] = bonus;
+                BONUS_EG[type * 64 + sq] = bonus;
+            }
+        }
+    }
+}
@@ -1,10 +1,16 @@
-// ========================= src/model/board/Position.java =========================
 package model.board;
 
-import java.util.Objects;
-
 public final class Position {
 
+    // As 64 casas válidas pré-alocadas (índice = row * 8 + column)
+    private static final Position[] SQUARES = new Position[64];
+
+    static {
+        for (int sq = 0; sq < 64; sq++) {
+            SQUARES[sq] = new Position(sq >>> 3, sq & 7);
+        }
+    }
+
     private final int row;    // 0..7 (0 = topo / linha 8, 7 = fundo / linha 1)
     private final int column; // 0..7 (0 = 'a', 7 = 'h')
 
@@ -13,9 +19,28 @@ public final class Position {
         this.column = column;
     }
 
+    /**
+     * Retorna a instância compartilhada da casa (sem alocação).
+     * Coordenadas fora do tabuleiro geram uma Position nova (isValid() == false).
+     */
+    public static Position of(int row, int column) {
+        if (row >= 0 && row < 8 && column >= 0 && column < 8) {
+            return SQUARES[row * 8 + column];
+        }
+        return new Position(row, column);
+    }
+
+    /** Instância compartilhada da casa 0..63 (0 = a8, 63 = h1). */
+    public static Position of(int square) {
+        return SQUARES[square];
+    }
+
     public int getRow() { return row; }
     public int getColumn() { return column; }
 
+    /** Índice 0..63 da casa (row * 8 + column), usado pelo Board e pelos bitboards. */
+    public int getSquare() { return row * 8 + column; }
+
     /** Retorna true se a posição estiver dentro do tabuleiro 8x8. */
     public boolean isValid() {
         return row >= 0 && row < 8 && column >= 0 && column < 8;
@@ -31,7 +56,7 @@ public final class Position {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, column);
+        return row * 8 + column;
     }
 
     /** Notação algébrica padrão (ex: a1, e4, h8). */
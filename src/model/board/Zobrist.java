@@ -0,0 +1,80 @@
+/**
+ * Zobrist.java
+ * Chaves aleatórias de 64 bits para hashing incremental de posições.
+ *
+ * A chave de uma posição é o XOR de:
+ * - piece(índice 0..11, casa 0..63) para cada peça no tabuleiro (mantido pelo Board)
+ * - side() quando as pretas estão a mover
+ * - castling(máscara de roques) — bits CASTLE_*
+ * - enPassant(coluna) quando há captura en passant possível
+ *
+ * O gerador tem semente fixa: as chaves são as mesmas em toda execução.
+ */
+package model.board;
+
+public final class Zobrist {
+
+    // Bits da máscara de direitos de roque
+    public static final int CASTLE_WHITE_KING = 1;
+    public static final int CASTLE_WHITE_QUEEN = 2;
+    public static final int CASTLE_BLACK_KING = 4;
+    public static final int CASTLE_BLACK_QUEEN = 8;
+
+    private static final long[] PIECE = new long[12 * 64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+    private static final long SIDE;
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < PIECE.length; i++) {
+            seed = next(seed);
+            PIECE[i] = mix(seed);
+        }
+        // Cada direito tem uma chave; combinações são o XOR das chaves ativas
+        long[] rights = new long[4];
+        for (int i = 0; i < 4; i++) {
+            seed = next(seed);
+            rights[i] = mix(seed);
+        }
+        for (int mask = 0; mask < 16; mask++) {
+            long k = 0L;
+            for (int i = 0; i < 4; i++) {
+                if ((mask & (1 << i)) != 0) k ^= rights[i];
+            }
+            CASTLING[mask] = k;
+        }
+        for (int f = 0; f < 8; f++) {
+            seed = next(seed);
+            EN_PASSANT[f] = mix(seed);
+        }
+        seed = next(seed);
+        SIDE = mix(seed);
+    }
+
+    private Zobrist() { /* utilitário */ }
+
+    /** Chave da peça de índice 0..11 (Piece.bitboardIndex) na casa 0..63. */
+    public static long piece(int index, int sq) { return PIECE[index * 64 + sq]; }
+
+    public static long side() { return SIDE; }
+
+    public static long castling(int rights) { return CASTLING[rights]; }
+
+    /** Chave da coluna en passant (ou 0 quando column < 0). */
+    public static long enPassant(int column) { return column < 0 ? 0L : EN_PASSANT[column]; }
+
+    // xorshift64 + finalizador (splitmix) para espalhar os bits
+    private static long next(long x) {
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        return x;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
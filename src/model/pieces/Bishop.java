@@ -3,6 +3,7 @@ package model.pieces;
 
 import java.util.ArrayList;
 import java.util.List;
+import model.board.Attacks;
 import model.board.Board;
 import model.board.Position;
 
@@ -18,44 +19,20 @@ public class Bishop extends Piece {
         Bishop clone = new Bishop(newBoard, isWhite);
         clone.moved = this.moved;
         if (this.position != null) {
-            clone.setPosition(new Position(this.position.getRow(), this.position.getColumn()));
+            clone.setPosition(this.position);
         }
         return clone;
     }
 
     @Override
-    public List<Position> getPossibleMoves() {
-        List<Position> moves = new ArrayList<>();
-        if (position == null) return moves;
-
-        // Quatro diagonais
-        addRay(moves, -1, -1); // noroeste
-        addRay(moves, -1,  1); // nordeste
-        addRay(moves,  1, -1); // sudoeste
-        addRay(moves,  1,  1); // sudeste
+    public int getType() { return BISHOP; }
 
-        return moves;
-    }
+    @Override
+    public List<Position> getPossibleMoves() {
+        if (position == null) return new ArrayList<>();
 
-    private void addRay(List<Position> acc, int dRow, int dCol) {
-        int r = position.getRow() + dRow;
-        int c = position.getColumn() + dCol;
-
-        while (r >= 0 && r < 8 && c >= 0 && c < 8) {
-            Position to = new Position(r, c);
-            Piece occ = board.get(to);
-
-            if (occ == null) {
-                acc.add(to);
-            } else {
-                if (occ.isWhite() != this.isWhite) {
-                    acc.add(to); // pode capturar a primeira peça adversária
-                }
-                break; // bloqueia após encontrar qualquer peça
-            }
-
-            r += dRow;
-            c += dCol;
-        }
+        // Quatro diagonais via tabela de ataques (para na 1ª peça; captura se adversária)
+        long targets = Attacks.bishop(getSquare(), board.occupied()) & ~board.colorBitboard(isWhite);
+        return toPositions(targets);
     }
 }
@@ -3,6 +3,7 @@ package model.pieces;
 
 import java.util.ArrayList;
 import java.util.List;
+import model.board.Attacks;
 import model.board.Board;
 import model.board.Position;
 
@@ -18,33 +19,20 @@ public class King extends Piece {
         King k = new King(newBoard, isWhite);
         k.moved = this.moved;
         if (this.position != null) {
-            k.setPosition(new Position(this.position.getRow(), this.position.getColumn()));
+            k.setPosition(this.position);
         }
         return k;
     }
 
     @Override
-    public List<Position> getPossibleMoves() {
-        List<Position> moves = new ArrayList<>();
-        if (position == null || board == null) return moves;
-
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue;
-                int r = position.getRow() + dr;
-                int c = position.getColumn() + dc;
-                if (r < 0 || r > 7 || c < 0 || c > 7) continue;
+    public int getType() { return KING; }
 
-                Position to = new Position(r, c);
-                Piece occ = board.get(to);
-                if (occ == null || occ.isWhite() != this.isWhite) {
-                    moves.add(to);
-                }
-            }
-        }
+    @Override
+    public List<Position> getPossibleMoves() {
+        if (position == null || board == null) return new ArrayList<>();
 
         // Roques são tratados no controller.Game (candidatos adicionados lá)
-        return moves;
+        return toPositions(Attacks.king(getSquare()) & ~board.colorBitboard(isWhite));
     }
 
     /**
@@ -53,18 +41,7 @@ public class King extends Piece {
      */
     @Override
     public List<Position> getAttacks() {
-        List<Position> attacks = new ArrayList<>();
-        if (position == null) return attacks;
-
-        for (int dr = -1; dr <= 1; dr++) {
-            for (int dc = -1; dc <= 1; dc++) {
-                if (dr == 0 && dc == 0) continue;
-                int r = position.getRow() + dr;
-                int c = position.getColumn() + dc;
-                if (r < 0 || r > 7 || c < 0 || c > 7) continue;
-                attacks.add(new Position(r, c));
-            }
-        }
-        return attacks;
+        if (position == null) return new ArrayList<>();
+        return toPositions(Attacks.king(getSquare()));
     }
 }
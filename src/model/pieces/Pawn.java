@@ -20,44 +20,35 @@ public class Pawn extends Piece {
         Pawn clone = new Pawn(newBoard, isWhite);
         clone.moved = this.moved;
         if (this.position != null) {
-            clone.setPosition(new Position(position.getRow(), position.getColumn()));
+            clone.setPosition(position);
         }
         return clone;
     }
 
+    @Override
+    public int getType() {
+        return PAWN;
+    }
+
     @Override
     public List<Position> getPossibleMoves() {
         List<Position> moves = new ArrayList<>();
         int dir = isWhite ? -1 : 1;
 
         // Um passo à frente
-        Position f1 = new Position(position.getRow() + dir, position.getColumn());
-        if (f1.isValid() && board.get(f1) == null) {
-            moves.add(f1);
+        int r1 = position.getRow() + dir, c = position.getColumn();
+        if (empty(r1, c)) {
+            moves.add(Position.of(r1, c));
 
             // Dois passos à frente (se ainda não moveu)
-            Position f2 = new Position(position.getRow() + 2 * dir, position.getColumn());
-            if (!moved && f2.isValid() && board.get(f2) == null) {
-                moves.add(f2);
+            int r2 = r1 + dir;
+            if (!moved && empty(r2, c)) {
+                moves.add(Position.of(r2, c));
             }
         }
 
-        // Capturas diagonais
-        Position left = new Position(position.getRow() + dir, position.getColumn() - 1);
-        Position right = new Position(position.getRow() + dir, position.getColumn() + 1);
-
-        if (left.isValid()) {
-            Piece target = board.get(left);
-            if (target != null && target.isWhite() != isWhite) {
-                moves.add(left);
-            }
-        }
-        if (right.isValid()) {
-            Piece target = board.get(right);
-            if (target != null && target.isWhite() != isWhite) {
-                moves.add(right);
-            }
-        }
+        // Capturas diagonais (apenas casas com peça adversária)
+        moves.addAll(toPositions(Attacks.pawn(isWhite, getSquare()) & board.colorBitboard(!isWhite)));
 
         // Obs: En passant tratado no Game
         return moves;
@@ -65,15 +56,6 @@ public class Pawn extends Piece {
 
     @Override
     public List<Position> getAttacks() {
-        List<Position> attacks = new ArrayList<>();
-        int dir = isWhite ? -1 : 1;
-
-        Position left = new Position(position.getRow() + dir, position.getColumn() - 1);
-        Position right = new Position(position.getRow() + dir, position.getColumn() + 1);
-
-        if (left.isValid()) attacks.add(left);
-        if (right.isValid()) attacks.add(right);
-
-        return attacks;
+        return toPositions(Attacks.pawn(isWhite, getSquare()));
     }
 }
@@ -8,6 +8,7 @@
  * - getPossibleMoves: retorna movimentos possíveis
  * - getAttacks: casas atacadas
  * - getSymbol: símbolo da peça
+ * - getType/bitboardIndex: índice da peça nos bitboards do Board
  * - copyFor: fábrica de cópia para outro tabuleiro
  *
  * Utilizada como base para as peças concretas (King, Queen, etc).
@@ -21,6 +22,10 @@ import java.util.*;
 
 
 public abstract class Piece {
+// Tipos de peça (índices dos bitboards do Board: brancas 0..5, pretas 6..11)
+public static final int PAWN = 0, KNIGHT = 1, BISHOP = 2, ROOK = 3, QUEEN = 4, KING = 5;
+
+
 protected Position position;
 protected final boolean isWhite;
 protected final Board board;
@@ -35,6 +40,7 @@ this.board = board; this.isWhite = isWhite;
 public boolean isWhite(){ return isWhite; }
 public Position getPosition(){ return position; }
 public void setPosition(Position position){ this.position = position; }
+public int getSquare(){ return position.getSquare(); } // 0..63
 public boolean hasMoved(){ return moved; }
 public void setMoved(boolean moved){ this.moved = moved; }
 
@@ -46,20 +52,27 @@ public List<Position> getAttacks(){ return getPossibleMoves(); }
 
 
 public abstract String getSymbol(); // K,Q,R,B,N,P
+public abstract int getType();      // PAWN..KING
+public int bitboardIndex(){ return isWhite ? getType() : getType() + 6; }
 
 
 // Fábrica de cópia para outro board
 public abstract Piece copyFor(Board newBoard);
 
 
-protected boolean empty(int r, int c){ return new Position(r,c).isValid() && board.get(new Position(r,c))==null; }
+protected boolean empty(int r, int c){ return r>=0 && r<8 && c>=0 && c<8 && board.get(r*8+c)==null; }
 protected boolean enemy(int r, int c){
-Position p = new Position(r,c);
-if(!p.isValid()) return false; Piece q = board.get(p);
+if(r<0 || r>7 || c<0 || c>7) return false; Piece q = board.get(r*8+c);
 return q!=null && q.isWhite()!=this.isWhite;
 }
+// Converte um bitboard de destinos em lista de posições (instâncias compartilhadas)
+protected List<Position> toPositions(long targets){
+List<Position> list = new ArrayList<>(Long.bitCount(targets));
+while(targets != 0){ int sq = Long.numberOfTrailingZeros(targets); targets &= targets - 1; list.add(Position.of(sq)); }
+return list;
+}
 protected void addIfFreeOrEnemy(List<Position> list, int r, int c){
-Position p = new Position(r,c); if(!p.isValid()) return;
-var q = board.get(p); if(q==null || q.isWhite()!=this.isWhite) list.add(p);
+if(r<0 || r>7 || c<0 || c>7) return;
+var q = board.get(r*8+c); if(q==null || q.isWhite()!=this.isWhite) list.add(Position.of(r,c));
 }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package model.pieces;
 
 import java.util.ArrayList;
 import java.util.List;
+import model.board.Attacks;
 import model.board.Board;
 import model.board.Position;
 
@@ -17,23 +18,17 @@ public class Queen extends Piece {
     }
 
     @Override
-    public List<Position> getPossibleMoves() {
-        List<Position> moves = new ArrayList<>();
-        if (position == null || board == null) return moves;
-
-        // Torre (4 direções)
-        addRay(moves, -1,  0); // cima
-        addRay(moves,  1,  0); // baixo
-        addRay(moves,  0, -1); // esquerda
-        addRay(moves,  0,  1); // direita
+    public int getType() {
+        return QUEEN;
+    }
 
-        // Bispo (4 diagonais)
-        addRay(moves, -1, -1); // noroeste
-        addRay(moves, -1,  1); // nordeste
-        addRay(moves,  1, -1); // sudoeste
-        addRay(moves,  1,  1); // sudeste
+    @Override
+    public List<Position> getPossibleMoves() {
+        if (position == null || board == null) return new ArrayList<>();
 
-        return moves;
+        // Torre + bispo (8 direções) via tabela de ataques
+        long targets = Attacks.queen(getSquare(), board.occupied()) & ~board.colorBitboard(isWhite);
+        return toPositions(targets);
     }
 
     @Override
@@ -41,30 +36,8 @@ public class Queen extends Piece {
         Queen clone = new Queen(newBoard, this.isWhite);
         clone.moved = this.moved;
         if (this.position != null) {
-            clone.setPosition(new Position(this.position.getRow(), this.position.getColumn()));
+            clone.setPosition(this.position);
         }
         return clone;
     }
-
-    private void addRay(List<Position> out, int dRow, int dCol) {
-        int r = position.getRow() + dRow;
-        int c = position.getColumn() + dCol;
-
-        while (r >= 0 && r < 8 && c >= 0 && c < 8) {
-            Position to = new Position(r, c);
-            Piece occ = board.get(to);
-
-            if (occ == null) {
-                out.add(to);
-            } else {
-                if (occ.isWhite() != this.isWhite) {
-                    out.add(to); // captura a primeira peça adversária no raio
-                }
-                break; // bloqueia após encontrar qualquer peça
-            }
-
-            r += dRow;
-            c += dCol;
-        }
-    }
 }
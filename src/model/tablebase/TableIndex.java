@@ -0,0 +1,225 @@
+/**
+ * TableIndex.java
+ * Nome e indexação de uma tabela de finais (ex.: "KBNvK": rei, bispo e cavalo
+ * brancos contra rei preto).
+ *
+ * Cada posição vira um índice: lado a mover, casa do rei branco dentro da
+ * região de simetria e casas das demais peças (6 bits cada), na ordem das
+ * "vagas" da tabela (brancas e depois pretas; rei primeiro, depois Q R B N P).
+ *
+ * Simetrias: sem peões o tabuleiro pode ser espelhado nas colunas, nas fileiras
+ * e na diagonal (8 transformações: o rei branco cabe em 10 casas); com peões só
+ * nas colunas (32 casas). Peças iguais são ordenadas por casa. Assim cada posição
+ * tem um único índice canônico (o menor entre as transformações válidas).
+ */
+package model.tablebase;
+
+import model.pieces.Piece;
+
+final class TableIndex {
+
+    /** Máximo de peças (reis incluídos) suportado pelas tabelas. */
+    static final int MAX_PIECES = 4;
+
+    private static final String LETTERS = "PNBRQK"; // índice = tipo (Piece.PAWN..KING)
+
+    final String name;
+    final int count;
+    final int[] types;        // tipo de cada vaga
+    final boolean[] white;    // cor de cada vaga
+    final boolean hasPawns;
+    final long size;          // número de índices
+
+    private final int[][] transforms;  // [t][casa] -> casa transformada
+    private final int[] regionOf = new int[64]; // posição na região do rei branco (-1 = fora)
+    private final int[] regionSquares;
+    private final int[] groupEnd;      // groupEnd[i]: fim (exclusivo) do grupo de peças iguais de i
+
+    TableIndex(String name) {
+        String normalized = normalize(name);
+        if (normalized == null) throw new IllegalArgumentException("Tabela inválida: " + name);
+        this.name = normalized;
+
+        String[] sides = normalized.split("v");
+        count = sides[0].length() + sides[1].length();
+        types = new int[count];
+        white = new boolean[count];
+        int k = 0;
+        boolean pawns = false;
+        for (int side = 0; side < 2; side++) {
+            for (char c : sides[side].toCharArray()) {
+                types[k] = LETTERS.indexOf(c);
+                white[k] = side == 0;
+                pawns |= types[k] == Piece.PAWN;
+                k++;
+            }
+        }
+        hasPawns = pawns;
+
+        transforms = hasPawns ? new int[2][64] : new int[8][64];
+        for (int t = 0; t < transforms.length; t++) {
+            for (int sq = 0; sq < 64; sq++) transforms[t][sq] = transform(t, sq);
+        }
+        // Região: casas que são a menor da própria órbita sob as transformações
+        int regions = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            boolean minimal = true;
+            for (int[] t : transforms) minimal &= t[sq] >= sq;
+            regionOf[sq] = minimal ? regions++ : -1;
+        }
+        regionSquares = new int[regions];
+        for (int sq = 0; sq < 64; sq++) {
+            if (regionOf[sq] >= 0) regionSquares[regionOf[sq]] = sq;
+        }
+
+        groupEnd = new int[count];
+        for (int i = count - 1; i >= 0; i--) {
+            boolean same = i + 1 < count && types[i + 1] == types[i] && white[i + 1] == white[i];
+            groupEnd[i] = same ? groupEnd[i + 1] : i + 1;
+        }
+
+        long n = 2L * regions;
+        for (int i = 1; i < count; i++) n *= 64;
+        size = n;
+    }
+
+    // --------- Nomes ----------
+
+    /**
+     * Nome normalizado ("KRNvK"): cada lado com um rei e as peças em ordem Q R B N P,
+     * no máximo MAX_PIECES peças. Devolve null se o nome for inválido.
+     */
+    static String normalize(String name) {
+        String[] sides = name.toUpperCase().split("V", -1);
+        if (sides.length != 2 || sides[0].length() + sides[1].length() > MAX_PIECES) return null;
+        StringBuilder sb = new StringBuilder();
+        for (int side = 0; side < 2; side++) {
+            String s = sides[side];
+            int kings = 0;
+            for (char c : s.toCharArray()) {
+                if (LETTERS.indexOf(c) < 0) return null;
+                if (c == 'K') kings++;
+            }
+            if (kings != 1) return null;
+            if (side == 1) sb.append('v');
+            sb.append('K');
+            for (int type = Piece.QUEEN; type >= Piece.PAWN; type--) {
+                for (char c : s.toCharArray()) {
+                    if (c == LETTERS.charAt(type)) sb.append(c);
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Nome normalizado do material dado (tipos e cores de n peças). */
+    static String nameOf(int[] types, boolean[] white, int n) {
+        StringBuilder w = new StringBuilder(), b = new StringBuilder();
+        for (int i = 0; i < n; i++) (white[i] ? w : b).append(LETTERS.charAt(types[i]));
+        return normalize(w + "v" + b);
+    }
+
+    /** O mesmo material com as cores trocadas ("KvKQ" -> "KQvK"). */
+    static String flipped(String name) {
+        String[] sides = name.split("v");
+        return sides[1] + "v" + sides[0];
+    }
+
+    /**
+     * Orientação em que a tabela é gerada e gravada: o lado com mais material
+     * (empate de material: o nome maior) fica com as brancas.
+     */
+    static String canonical(String name) {
+        String flip = flipped(name);
+        int diff = strength(name.split("v")[0]) - strength(flip.split("v")[0]);
+        if (diff != 0) return diff > 0 ? name : flip;
+        return name.compareTo(flip) >= 0 ? name : flip;
+    }
+
+    private static int strength(String side) {
+        int[] values = {1, 3, 3, 5, 9, 0};
+        int s = 0;
+        for (char c : side.toCharArray()) s += values[LETTERS.indexOf(c)];
+        return s;
+    }
+
+    // --------- Índices ----------
+
+    /**
+     * Coloca as peças (tipos, cores, casas) nas vagas desta tabela; com flip, troca
+     * as cores e espelha as fileiras. Devolve false se o material não corresponder.
+     */
+    boolean fill(int[] pieceTypes, boolean[] pieceWhite, int[] squares, int n, boolean flip, int[] slotSquares) {
+        if (n != count) return false;
+        int used = 0; // bit por vaga
+        for (int j = 0; j < n; j++) {
+            boolean w = pieceWhite[j] ^ flip;
+            int slot = 0;
+            while (slot < count && ((used >>> slot & 1) != 0 || types[slot] != pieceTypes[j] || white[slot] != w)) {
+                slot++;
+            }
+            if (slot == count) return false;
+            used |= 1 << slot;
+            slotSquares[slot] = flip ? squares[j] ^ 56 : squares[j];
+        }
+        return true;
+    }
+
+    /** Índice canônico da posição (casas por vaga, lado a mover). */
+    long index(int[] squares, boolean whiteToMove) {
+        return index(squares, whiteToMove, new int[count]);
+    }
+
+    /** Como index(squares, whiteToMove), usando t (count casas ou mais) como rascunho. */
+    long index(int[] squares, boolean whiteToMove, int[] t) {
+        long best = Long.MAX_VALUE;
+        for (int[] tf : transforms) {
+            if (regionOf[tf[squares[0]]] < 0) continue;
+            for (int i = 0; i < count; i++) t[i] = tf[squares[i]];
+            sortGroups(t);
+            long idx = raw(t, whiteToMove);
+            if (idx < best) best = idx;
+        }
+        return best;
+    }
+
+    /** Decodifica idx nas casas por vaga; devolve true se as brancas estiverem a mover. */
+    boolean decode(long idx, int[] squares) {
+        for (int i = count - 1; i >= 1; i--) {
+            squares[i] = (int) (idx & 63);
+            idx >>>= 6;
+        }
+        squares[0] = regionSquares[(int) (idx % regionSquares.length)];
+        return idx / regionSquares.length == 0;
+    }
+
+    private long raw(int[] squares, boolean whiteToMove) {
+        long idx = (whiteToMove ? 0 : 1) * (long) regionSquares.length + regionOf[squares[0]];
+        for (int i = 1; i < count; i++) idx = (idx << 6) | squares[i];
+        return idx;
+    }
+
+    // Ordena por casa cada grupo de peças iguais (vagas consecutivas de mesmo tipo e cor)
+    private void sortGroups(int[] squares) {
+        for (int i = 1; i < count; i++) {
+            int end = groupEnd[i];
+            for (int a = i + 1; a < end; a++) {
+                int v = squares[a], b = a - 1;
+                while (b >= i && squares[b] > v) {
+                    squares[b + 1] = squares[b];
+                    b--;
+                }
+                squares[b + 1] = v;
+            }
+            i = end - 1;
+        }
+    }
+
+    // t: bit 0 espelha colunas, bit 1 espelha fileiras, bit 2 troca linha e coluna (diagonal)
+    private static int transform(int t, int sq) {
+        if ((t & 1) != 0) sq ^= 7;
+        if ((t & 2) != 0) sq ^= 56;
+        if ((t & 4) != 0) sq = ((sq & 7) << 3) | (sq >>> 3);
+        return sq;
+    }
+}
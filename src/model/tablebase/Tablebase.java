@@ -0,0 +1,242 @@
+/**
+ * Tablebase.java
+ * Consulta das tabelas de finais geradas pelo TablebaseGenerator (até 4 peças).
+ *
+ * Cada tabela é um arquivo "<nome>.ctb" no diretório das tabelas, mapeado em
+ * memória na primeira consulta e lido direto do mapeamento. Formato:
+ *   cabeçalho: "CTB1" | bits por entrada (int) | número de entradas (long), big-endian
+ *   dados:     um código por índice (TableIndex), empacotado em "bits" bits
+ *
+ * Código (visão do lado a mover):
+ *   0                 empate (ou posição impossível)
+ *   ímpar p           vitória: mate em p plies
+ *   par   p + 2       derrota: levado a mate em p plies (2 = já está em mate)
+ *
+ * As tabelas ignoram roque e en passant: quem consulta deve garantir que a
+ * posição não tem esses direitos. Consultas são seguras entre threads; cada
+ * thread passa o seu Scratch e então a consulta não aloca nada (a busca consulta
+ * a cada nó com poucas peças).
+ */
+package model.tablebase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import model.board.Board;
+import model.pieces.Piece;
+
+public final class Tablebase {
+
+    /** Resultado de probe quando não há tabela para o material. */
+    public static final int NOT_FOUND = -1;
+    public static final int DRAW = 0;
+    /** Máximo de peças (reis incluídos) das tabelas. */
+    public static final int MAX_PIECES = TableIndex.MAX_PIECES;
+
+    static final int MAGIC = 0x43544231; // "CTB1"
+    static final int HEADER_SIZE = 16;
+    static final String EXTENSION = ".ctb";
+
+    private static final Table MISSING = new Table(null, null, 0);
+
+    // Assinatura do material: as até duas peças além dos reis, cada uma como 1 + tipo
+    // (PAWN..QUEEN), mais 5 se preta (0 = ausente); maior * 11 + menor
+    private static final int KINDS = 11;
+    private static final int SIGNATURES = KINDS * KINDS;
+
+    private final Path dir;
+    // Tabela (ou MISSING) e orientação por assinatura do material; preenchido sob demanda
+    private final AtomicReferenceArray<Lookup> bySignature = new AtomicReferenceArray<>(SIGNATURES);
+    // Tabelas já abertas (ou MISSING) por nome canônico: as duas orientações dividem o mapeamento
+    private final ConcurrentHashMap<String, Table> tables = new ConcurrentHashMap<>();
+
+    /** Vetores de trabalho de uma consulta. Um por thread: probe não aloca. */
+    public static final class Scratch {
+        final int[] types = new int[MAX_PIECES];
+        final boolean[] white = new boolean[MAX_PIECES];
+        final int[] squares = new int[MAX_PIECES];
+        final int[] slots = new int[MAX_PIECES];
+        final int[] transformed = new int[MAX_PIECES];
+    }
+
+    private Tablebase(Path dir) {
+        this.dir = dir;
+    }
+
+    /** Tabelas do diretório dir (os arquivos são abertos sob demanda). */
+    public static Tablebase open(Path dir) {
+        return new Tablebase(dir);
+    }
+
+    /**
+     * Tabelas padrão: diretório de -Dchess.tb=<caminho> ou, na falta, "tablebases".
+     * Devolve null se o diretório não existir.
+     */
+    public static Tablebase openDefault() {
+        String custom = System.getProperty("chess.tb");
+        File f = new File(custom != null ? custom : "tablebases");
+        return f.isDirectory() ? open(f.toPath()) : null;
+    }
+
+    public Path directory() { return dir; }
+
+    /** true se há arquivo para o material (em qualquer das cores). */
+    public boolean has(String name) {
+        String normalized = TableIndex.normalize(name);
+        return normalized != null && table(TableIndex.canonical(normalized)) != MISSING;
+    }
+
+    // --------- Códigos ----------
+
+    public static boolean isWin(int code) { return code > 0 && (code & 1) != 0; }
+
+    public static boolean isLoss(int code) { return code > 0 && (code & 1) == 0; }
+
+    /** Plies até o mate (vitória ou derrota); 0 para empate. */
+    public static int plies(int code) {
+        if (code <= 0) return 0;
+        return (code & 1) != 0 ? code : code - 2;
+    }
+
+    static int winCode(int plies) { return plies; }
+
+    static int lossCode(int plies) { return plies + 2; }
+
+    // --------- Consulta ----------
+
+    /**
+     * Código da posição do tabuleiro com o lado dado a mover, ou NOT_FOUND se
+     * houver mais de MAX_PIECES peças ou não existir tabela para o material.
+     * Aloca os vetores de trabalho; na busca use probe(board, whiteToMove, scratch).
+     */
+    public int probe(Board board, boolean whiteToMove) {
+        return probe(board, whiteToMove, new Scratch());
+    }
+
+    /** Como probe(board, whiteToMove), usando os vetores de scratch (sem alocação). */
+    public int probe(Board board, boolean whiteToMove, Scratch scratch) {
+        long occ = board.occupied();
+        int n = Long.bitCount(occ);
+        if (n > MAX_PIECES) return NOT_FOUND;
+        int k = 0;
+        for (int index = 0; index < 12; index++) {
+            long bb = board.bitboard(index);
+            while (bb != 0) {
+                scratch.squares[k] = Long.numberOfTrailingZeros(bb);
+                scratch.types[k] = index % 6;
+                scratch.white[k] = index < 6;
+                k++;
+                bb &= bb - 1;
+            }
+        }
+        return probe(scratch, n, whiteToMove);
+    }
+
+    /** Código da posição dada pelas n primeiras peças de scratch (tipos, cores, casas). */
+    int probe(Scratch scratch, int n, boolean whiteToMove) {
+        if (n <= 2) return DRAW; // só os reis
+        int signature = signature(scratch.types, scratch.white, n);
+        if (signature < 0) return NOT_FOUND;
+        Lookup lookup = bySignature.get(signature);
+        if (lookup == null) {
+            String name = TableIndex.nameOf(scratch.types, scratch.white, n);
+            if (name == null) return NOT_FOUND;
+            String canonical = TableIndex.canonical(name);
+            lookup = new Lookup(table(canonical), !canonical.equals(name));
+            bySignature.compareAndSet(signature, null, lookup);
+        }
+        Table table = lookup.table;
+        if (table == MISSING) return NOT_FOUND;
+        if (!table.index.fill(scratch.types, scratch.white, scratch.squares, n, lookup.flip, scratch.slots)) {
+            return NOT_FOUND;
+        }
+        return table.code(table.index.index(scratch.slots, whiteToMove ^ lookup.flip, scratch.transformed));
+    }
+
+    // Assinatura do material (ver SIGNATURES), ou -1 sem exatamente um rei por lado
+    private static int signature(int[] types, boolean[] white, int n) {
+        int a = 0, b = 0, whiteKings = 0, blackKings = 0;
+        for (int i = 0; i < n; i++) {
+            if (types[i] == Piece.KING) {
+                if (white[i]) whiteKings++;
+                else blackKings++;
+                continue;
+            }
+            int kind = types[i] + (white[i] ? 1 : 6);
+            if (a == 0) {
+                a = kind;
+            } else if (b == 0) {
+                b = kind;
+            } else {
+                return -1;
+            }
+        }
+        if (whiteKings != 1 || blackKings != 1) return -1;
+        return Math.max(a, b) * KINDS + Math.min(a, b);
+    }
+
+    /** Tabela aberta para uma assinatura e se a posição é consultada com as cores trocadas. */
+    private static final class Lookup {
+        final Table table;
+        final boolean flip;
+
+        Lookup(Table table, boolean flip) {
+            this.table = table;
+            this.flip = flip;
+        }
+    }
+
+    private Table table(String canonical) {
+        Table t = tables.get(canonical);
+        if (t == null) {
+            t = load(canonical);
+            Table prev = tables.putIfAbsent(canonical, t);
+            if (prev != null) t = prev;
+        }
+        return t;
+    }
+
+    private Table load(String name) {
+        Path file = dir.resolve(name + EXTENSION);
+        if (!Files.isRegularFile(file)) return MISSING;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            // O mapeamento continua válido depois de fechar o canal
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            TableIndex index = new TableIndex(name);
+            if (ch.size() < HEADER_SIZE || buf.getInt(0) != MAGIC || buf.getLong(8) != index.size) {
+                throw new IllegalStateException(file + ": arquivo de tabela inválido");
+            }
+            return new Table(index, buf, buf.getInt(4));
+        } catch (IOException e) {
+            throw new IllegalStateException("Erro lendo " + file, e);
+        }
+    }
+
+    /** Tabela aberta: índice e dados empacotados. */
+    private static final class Table {
+        final TableIndex index;
+        final MappedByteBuffer data;
+        final int bits;
+        final int mask;
+
+        Table(TableIndex index, MappedByteBuffer data, int bits) {
+            this.index = index;
+            this.data = data;
+            this.bits = bits;
+            this.mask = (1 << bits) - 1;
+        }
+
+        int code(long idx) {
+            long bit = idx * bits;
+            int pos = HEADER_SIZE + (int) (bit >>> 3);
+            int word = (data.get(pos) & 0xFF) | (data.get(pos + 1) & 0xFF) << 8;
+            return (word >>> (int) (bit & 7)) & mask;
+        }
+    }
+}
@@ -0,0 +1,481 @@
+/**
+ * TablebaseGenerator.java
+ * Gera tabelas de finais (vitória/empate/derrota e distância até o mate) por
+ * análise retrógrada, em várias threads, no formato lido pela Tablebase.
+ *
+ * Etapas de uma tabela:
+ * 1) Inicialização: para cada índice legal conta os lances que ficam na tabela
+ *    (filhos distintos) e resolve os que saem dela (capturas e promoções) consultando
+ *    as tabelas menores, geradas antes. Mates recebem "derrota em 0".
+ * 2) Retrocesso, ply a ply: das posições resolvidas no ply n geram-se os lances
+ *    desfeitos (predecessores). Quem pode ir para uma derrota do adversário vence
+ *    em n + 1; quem vê o último lance restante levar a uma vitória do adversário
+ *    perde em n + 1. O que sobra no fim é empate.
+ * Cada ply é dividido em blocos de índices entre as threads; as atualizações dos
+ * predecessores usam operações atômicas (VarHandle) sobre os vetores.
+ *
+ * Uso: java model.tablebase.TablebaseGenerator [--dir D] [--threads N] [tabelas...]
+ *      (padrão: tablebases, todas as CPUs, KQvK KRvK KPvK KBNvK)
+ */
+package model.tablebase;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import model.board.Attacks;
+import model.pieces.Piece;
+
+public final class TablebaseGenerator {
+
+    private static final String[] DEFAULT_TABLES = {"KQvK", "KRvK", "KPvK", "KBNvK"};
+
+    private static final int UNKNOWN = 0;
+    private static final int ILLEGAL = 255;
+    private static final int MAX_PLY = 240;     // códigos cabem em um byte durante a geração
+    private static final int CHUNK = 1 << 15;   // índices por tarefa
+    private static final int[] PROMOTIONS = {Piece.QUEEN, Piece.ROOK, Piece.BISHOP, Piece.KNIGHT};
+
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final Path dir;
+    private final int threads;
+
+    // Estado da tabela em geração
+    private TableIndex index;
+    private Tablebase smaller;
+    private byte[] codes;
+    private int[] counters;    // lances ainda não refutados (filhos distintos na tabela)
+    private byte[] lossFloor;  // derrota mais longa entre os lances que saem da tabela
+
+    private TablebaseGenerator(Path dir, int threads) {
+        this.dir = dir;
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get("tablebases");
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--dir" -> dir = Paths.get(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> names.add(args[i]);
+            }
+        }
+        if (names.isEmpty()) names = List.of(DEFAULT_TABLES);
+        generate(dir, threads, names.toArray(new String[0]));
+    }
+
+    /** Gera as tabelas pedidas (e as menores de que dependem) que ainda não existem em dir. */
+    public static void generate(Path dir, int threads, String... names) throws IOException {
+        if (threads < 1) throw new IllegalArgumentException("Threads inválidas: " + threads);
+        Files.createDirectories(dir);
+        TablebaseGenerator gen = new TablebaseGenerator(dir, threads);
+        for (String name : names) {
+            String normalized = TableIndex.normalize(name);
+            if (normalized == null) throw new IllegalArgumentException("Tabela inválida: " + name);
+            gen.generate(TableIndex.canonical(normalized));
+        }
+    }
+
+    private void generate(String name) throws IOException {
+        Path file = dir.resolve(name + Tablebase.EXTENSION);
+        if (Files.exists(file)) return;
+        for (String sub : dependencies(new TableIndex(name))) generate(sub);
+
+        long start = System.nanoTime();
+        index = new TableIndex(name);
+        smaller = Tablebase.open(dir); // vê as tabelas recém-geradas
+        codes = new byte[(int) index.size];
+        counters = new int[(int) index.size];
+        lossFloor = new byte[(int) index.size];
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        int maxPly;
+        try {
+            maxPly = forEachChunk(pool, Worker::init);
+            for (int ply = 0; ply <= maxPly; ply++) {
+                int target = (ply & 1) != 0 ? Tablebase.winCode(ply) : Tablebase.lossCode(ply);
+                int p = ply;
+                maxPly = Math.max(maxPly, forEachChunk(pool, (w, i) ->
+                        (codes[(int) i] & 0xFF) == target ? w.retro(i, p) : -1));
+                if (maxPly > MAX_PLY) throw new IllegalStateException(name + ": mate longo demais");
+            }
+        } finally {
+            pool.shutdown();
+        }
+        write(file, maxPly);
+        System.out.printf("%-8s %,12d índices  mate máx. %3d plies  %6.1fs%n",
+                name, index.size, Math.max(0, maxPly), (System.nanoTime() - start) / 1e9);
+        codes = lossFloor = null;
+        counters = null;
+    }
+
+    /** Tabelas para onde capturas e promoções levam (só as que têm mais que os reis). */
+    private static List<String> dependencies(TableIndex index) {
+        List<String> out = new ArrayList<>();
+        int n = index.count;
+        for (int j = 0; j < n; j++) {
+            if (index.types[j] == Piece.KING) continue;
+            int[] types = new int[n - 1];
+            boolean[] white = new boolean[n - 1];
+            for (int i = 0, k = 0; i < n; i++) {
+                if (i == j) continue;
+                types[k] = index.types[i];
+                white[k++] = index.white[i];
+            }
+            add(out, TableIndex.nameOf(types, white, n - 1), n - 1);
+            if (index.types[j] == Piece.PAWN) {
+                for (int promo : PROMOTIONS) {
+                    int[] promoted = index.types.clone();
+                    promoted[j] = promo;
+                    add(out, TableIndex.nameOf(promoted, index.white, n), n);
+                }
+            }
+        }
+        return out;
+    }
+
+    private static void add(List<String> out, String name, int pieces) {
+        if (pieces <= 2) return;
+        String canonical = TableIndex.canonical(name);
+        if (!out.contains(canonical)) out.add(canonical);
+    }
+
+    /** Trabalho sobre um índice, com o rascunho da thread; devolve um ply (ou -1). */
+    private interface IndexTask {
+        int run(Worker worker, long index);
+    }
+
+    /** Aplica task a todos os índices, em blocos entre as threads; devolve o maior valor. */
+    private int forEachChunk(ExecutorService pool, IndexTask task) {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (long from = 0; from < index.size; from += CHUNK) {
+            long start = from, end = Math.min(index.size, from + CHUNK);
+            futures.add(pool.submit(() -> {
+                Worker worker = new Worker();
+                int max = -1;
+                for (long i = start; i < end; i++) max = Math.max(max, task.run(worker, i));
+                return max;
+            }));
+        }
+        int max = -1;
+        try {
+            for (Future<Integer> f : futures) max = Math.max(max, f.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Geração interrompida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha na geração de " + index.name, e.getCause());
+        }
+        return max;
+    }
+
+    private void write(Path file, int maxPly) throws IOException {
+        int maxCode = 0;
+        for (int i = 0; i < codes.length; i++) {
+            int c = codes[i] & 0xFF;
+            if (c == ILLEGAL) codes[i] = (byte) (c = 0); // posições impossíveis viram empate
+            maxCode = Math.max(maxCode, c);
+        }
+        int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(maxCode));
+        byte[] packed = new byte[(int) ((index.size * bits + 7) >>> 3) + 2]; // folga para ler 2 bytes
+        for (long i = 0; i < index.size; i++) {
+            int c = codes[(int) i] & 0xFF;
+            long bit = i * bits;
+            int pos = (int) (bit >>> 3), shift = (int) (bit & 7);
+            packed[pos] |= (byte) (c << shift);
+            packed[pos + 1] |= (byte) (c >>> (8 - shift));
+        }
+        ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_SIZE);
+        header.putInt(Tablebase.MAGIC).putInt(bits).putLong(index.size);
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var out = Files.newOutputStream(tmp)) {
+            out.write(header.array());
+            out.write(packed);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // --------- Atualizações atômicas ----------
+
+    private int code(long i) {
+        return (byte) BYTES.getVolatile(codes, (int) i) & 0xFF;
+    }
+
+    private boolean setCode(long i, int expected, int code) {
+        return BYTES.compareAndSet(codes, (int) i, (byte) expected, (byte) code);
+    }
+
+    /** Estado de rascunho de uma tarefa (posição decodificada e vizinhas). */
+    private final class Worker {
+        final int n = index.count;
+        final int[] sq = new int[n];
+        final int[] tmp = new int[n];
+        final long[] found = new long[128];
+        int foundCount;
+        final Tablebase.Scratch scratch = new Tablebase.Scratch(); // consultas às tabelas menores
+        final int whiteKing, blackKing;
+
+        Worker() {
+            int w = -1, b = -1;
+            for (int a = 0; a < n; a++) {
+                if (index.types[a] != Piece.KING) continue;
+                if (index.white[a]) w = a;
+                else b = a;
+            }
+            whiteKing = w;
+            blackKing = b;
+        }
+
+        /** Etapa 1 para o índice i; devolve o ply resolvido (ou -1). */
+        int init(long i) {
+            boolean wtm = index.decode(i, sq);
+            if (!legal(sq, wtm) || index.index(sq, wtm) != i) {
+                codes[(int) i] = (byte) ILLEGAL;
+                return -1;
+            }
+            long occ = occupancy(sq);
+            foundCount = 0;
+            int moves = 0, bestWin = Integer.MAX_VALUE, floor = 0;
+            boolean escape = false;
+
+            for (int a = 0; a < n; a++) {
+                if (index.white[a] != wtm) continue;
+                int from = sq[a];
+                long targets = targets(a, from, occ, wtm);
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    int victim = slotAt(to);
+                    if (!legalAfter(a, to, victim, occ, wtm)) continue;
+                    boolean promotion = index.types[a] == Piece.PAWN && (to >>> 3) == (wtm ? 0 : 7);
+                    if (victim < 0 && !promotion) {
+                        System.arraycopy(sq, 0, tmp, 0, n);
+                        tmp[a] = to;
+                        addDistinct(index.index(tmp, !wtm));
+                        moves++;
+                        continue;
+                    }
+                    for (int k = 0; k < (promotion ? PROMOTIONS.length : 1); k++) {
+                        int child = probeExternal(a, to, victim, promotion ? PROMOTIONS[k] : index.types[a], !wtm);
+                        moves++;
+                        if (Tablebase.isLoss(child)) {
+                            bestWin = Math.min(bestWin, Tablebase.plies(child) + 1);
+                        } else if (Tablebase.isWin(child)) {
+                            floor = Math.max(floor, Tablebase.plies(child) + 1);
+                        } else {
+                            escape = true;
+                        }
+                    }
+                }
+            }
+
+            lossFloor[(int) i] = (byte) floor;
+            // Um lance de empate nunca é refutado: conta como filho que não se resolve
+            counters[(int) i] = foundCount + (escape ? 1 : 0);
+            if (moves == 0) {
+                if (!attacked(sq[kingSlot(wtm)], !wtm, occ, -1)) return -1; // afogado: empate
+                codes[(int) i] = (byte) Tablebase.lossCode(0);
+                return 0;
+            }
+            if (bestWin != Integer.MAX_VALUE) {
+                // Vitória saindo da tabela; um mate mais curto dentro dela ainda pode substituí-la
+                codes[(int) i] = (byte) Tablebase.winCode(bestWin);
+                return bestWin;
+            }
+            if (counters[(int) i] == 0) {
+                codes[(int) i] = (byte) Tablebase.lossCode(floor);
+                return floor;
+            }
+            return -1;
+        }
+
+        /** Etapa 2 para o índice i, resolvido no ply dado; devolve o maior ply atribuído. */
+        int retro(long i, int ply) {
+            boolean wtm = index.decode(i, sq);
+            boolean mover = !wtm; // quem fez o último lance
+            long occ = occupancy(sq);
+            foundCount = 0;
+            for (int a = 0; a < n; a++) {
+                if (index.white[a] != mover) continue;
+                int to = sq[a];
+                long froms;
+                if (index.types[a] == Piece.PAWN) {
+                    froms = 0L;
+                    int back = mover ? to + 8 : to - 8;
+                    int row = back >>> 3;
+                    if (row >= 1 && row <= 6 && (occ & (1L << back)) == 0) {
+                        froms |= 1L << back;
+                        int back2 = mover ? back + 8 : back - 8;
+                        if ((to >>> 3) == (mover ? 4 : 3) && (occ & (1L << back2)) == 0) froms |= 1L << back2;
+                    }
+                } else {
+                    froms = attacks(index.types[a], to, occ, mover) & ~occ;
+                }
+                while (froms != 0) {
+                    int from = Long.numberOfTrailingZeros(froms);
+                    froms &= froms - 1;
+                    System.arraycopy(sq, 0, tmp, 0, n);
+                    tmp[a] = from;
+                    long predOcc = occ ^ (1L << to) ^ (1L << from);
+                    // No predecessor o lado que não move (wtm) não pode estar em xeque
+                    if (attackedIn(tmp, tmp[kingSlot(wtm)], mover, predOcc)) continue;
+                    addDistinct(index.index(tmp, mover));
+                }
+            }
+
+            int max = -1;
+            boolean childLost = (ply & 1) == 0; // plies pares: quem está a mover em i perde
+            for (int k = 0; k < foundCount; k++) {
+                long p = found[k];
+                if (childLost) {
+                    // O predecessor tem um lance para uma derrota do adversário: vence em ply + 1
+                    while (true) {
+                        int v = code(p);
+                        boolean improvable = v == UNKNOWN || (v != ILLEGAL && Tablebase.isWin(v) && v > ply + 1);
+                        if (!improvable) break;
+                        if (setCode(p, v, Tablebase.winCode(ply + 1))) {
+                            max = Math.max(max, ply + 1);
+                            break;
+                        }
+                    }
+                } else if (code(p) == UNKNOWN) {
+                    // Mais um lance do predecessor leva a vitória do adversário
+                    int left = (int) INTS.getAndAdd(counters, (int) p, -1);
+                    if (left == 1) {
+                        int lossPly = Math.max(ply + 1, lossFloor[(int) p] & 0xFF);
+                        if (setCode(p, UNKNOWN, Tablebase.lossCode(lossPly))) max = Math.max(max, lossPly);
+                    }
+                }
+            }
+            return max;
+        }
+
+        private void addDistinct(long idx) {
+            for (int k = 0; k < foundCount; k++) {
+                if (found[k] == idx) return;
+            }
+            found[foundCount++] = idx;
+        }
+
+        // --------- Regras (posição em vagas) ----------
+
+        private boolean legal(int[] s, boolean wtm) {
+            long occ = 0L;
+            for (int a = 0; a < n; a++) {
+                long bit = 1L << s[a];
+                if ((occ & bit) != 0) return false;
+                if (index.types[a] == Piece.PAWN && ((s[a] >>> 3) == 0 || (s[a] >>> 3) == 7)) return false;
+                occ |= bit;
+            }
+            // Quem não está a mover não pode estar em xeque (inclui reis vizinhos)
+            return !attackedIn(s, s[kingSlot(!wtm)], wtm, occ);
+        }
+
+        private boolean legalAfter(int a, int to, int victim, long occ, boolean wtm) {
+            System.arraycopy(sq, 0, tmp, 0, n);
+            tmp[a] = to;
+            long after = (occ ^ (1L << sq[a])) | (1L << to);
+            int king = tmp[kingSlot(wtm)];
+            for (int b = 0; b < n; b++) {
+                if (b == victim || index.white[b] == wtm) continue;
+                if ((attacks(index.types[b], tmp[b], after, !wtm) & (1L << king)) != 0) return false;
+            }
+            return true;
+        }
+
+        private boolean attacked(int target, boolean byWhite, long occ, int skip) {
+            for (int b = 0; b < n; b++) {
+                if (b == skip || index.white[b] != byWhite) continue;
+                if ((attacks(index.types[b], sq[b], occ, byWhite) & (1L << target)) != 0) return true;
+            }
+            return false;
+        }
+
+        private boolean attackedIn(int[] s, int target, boolean byWhite, long occ) {
+            for (int b = 0; b < n; b++) {
+                if (index.white[b] != byWhite) continue;
+                if ((attacks(index.types[b], s[b], occ, byWhite) & (1L << target)) != 0) return true;
+            }
+            return false;
+        }
+
+        private long targets(int a, int from, long occ, boolean wtm) {
+            long own = 0L, enemy = 0L;
+            for (int b = 0; b < n; b++) {
+                if (index.white[b] == wtm) own |= 1L << sq[b];
+                else enemy |= 1L << sq[b];
+            }
+            if (index.types[a] != Piece.PAWN) return attacks(index.types[a], from, occ, wtm) & ~own;
+            long t = Attacks.pawn(wtm, from) & enemy;
+            int one = wtm ? from - 8 : from + 8;
+            if ((occ & (1L << one)) == 0) {
+                t |= 1L << one;
+                int two = wtm ? one - 8 : one + 8;
+                if ((from >>> 3) == (wtm ? 6 : 1) && (occ & (1L << two)) == 0) t |= 1L << two;
+            }
+            return t;
+        }
+
+        private int probeExternal(int a, int to, int victim, int type, boolean childWtm) {
+            int m = victim >= 0 ? n - 1 : n;
+            int[] types = scratch.types;
+            boolean[] white = scratch.white;
+            int[] squares = scratch.squares;
+            for (int b = 0, k = 0; b < n; b++) {
+                if (b == victim) continue;
+                types[k] = b == a ? type : index.types[b];
+                white[k] = index.white[b];
+                squares[k++] = b == a ? to : sq[b];
+            }
+            int code = smaller.probe(scratch, m, childWtm);
+            if (code == Tablebase.NOT_FOUND) {
+                throw new IllegalStateException("Tabela ausente: " + TableIndex.nameOf(types, white, m));
+            }
+            return code;
+        }
+
+        private int slotAt(int s) {
+            for (int b = 0; b < n; b++) {
+                if (sq[b] == s) return b;
+            }
+            return -1;
+        }
+
+        private long occupancy(int[] s) {
+            long occ = 0L;
+            for (int b = 0; b < n; b++) occ |= 1L << s[b];
+            return occ;
+        }
+
+        private int kingSlot(boolean white) {
+            return white ? whiteKing : blackKing;
+        }
+    }
+
+    private static long attacks(int type, int sq, long occ, boolean white) {
+        return switch (type) {
+            case Piece.PAWN -> Attacks.pawn(white, sq);
+            case Piece.KNIGHT -> Attacks.knight(sq);
+            case Piece.BISHOP -> Attacks.bishop(sq, occ);
+            case Piece.ROOK -> Attacks.rook(sq, occ);
+            case Piece.QUEEN -> Attacks.queen(sq, occ);
+            default -> Attacks.king(sq);
+        };
+    }
+}
@@ -3,9 +3,15 @@
 package view;
 
 import controller.Game;
+import ai.CancellationToken;
+import ai.EngineSession;
 import ai.IANivel3;
+import ai.OpeningBook;
+import ai.SearchInfo;
+import ai.SearchLimits;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -13,6 +19,7 @@ import javax.swing.*;
 import javax.swing.border.Border;
 import javax.swing.border.MatteBorder;
 import model.board.Position;
+import model.tablebase.Tablebase;
 import model.pieces.Pawn;
 import model.pieces.Piece;
 
@@ -70,7 +77,13 @@ public class ChessGUI extends JFrame {
     // IA
     private boolean aiThinking = false;
     private final Random rnd = new Random();
+    // Tabelas de finais (-Dchess.tb ou diretório tablebases); null sem tabelas
+    private final Tablebase tablebase = Tablebase.openDefault();
     private int aiLevel = 0; // 0 = fácil, 1 = médio, 2 = difícil
+    // Motor do nível difícil: o mesmo para a partida toda (recomeça sozinho em "Novo Jogo")
+    private final EngineSession engine;
+    // Busca do nível difícil em andamento (cancelada em "Novo Jogo" e ao fechar a janela)
+    private CancellationToken aiToken;
 
     // Construtor da interface
     public ChessGUI() {
@@ -84,8 +97,24 @@ public class ChessGUI extends JFrame {
         }
 
         this.game = new Game();
+        IANivel3 iaNivel3 = new IANivel3();
+        // Livro de aberturas do nível difícil (-Dchess.book ou resources/book.bin); sem arquivo, sem livro
+        String bookError = null;
+        try {
+            iaNivel3.setOpeningBook(OpeningBook.openDefault());
+        } catch (IOException e) {
+            bookError = e.getMessage(); // avisado quando a janela abrir
+        }
+        iaNivel3.setTablebase(tablebase);
+        this.engine = new EngineSession(game, iaNivel3);
 
         setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                cancelAI();
+            }
+        });
         setLayout(new BorderLayout(8, 8));
 
         // Menu superior
@@ -115,7 +144,7 @@ public class ChessGUI extends JFrame {
                 b.setBorderPainted(true);
                 b.setContentAreaFilled(true);
                 b.setFont(b.getFont().deriveFont(Font.BOLD, 24f)); // fallback Unicode
-                b.addActionListener(e -> handleClick(new Position(rr, cc))); // ação de clique
+                b.addActionListener(e -> handleClick(Position.of(rr, cc))); // ação de clique
                 squares[r][c] = b;
                 boardPanel.add(b);
             }
@@ -234,6 +263,10 @@ public class ChessGUI extends JFrame {
         setupAccelerators();
 
         setVisible(true);
+        if (bookError != null) {
+            JOptionPane.showMessageDialog(this, "Livro de aberturas ignorado:\n" + bookError,
+                    "Livro de aberturas", JOptionPane.WARNING_MESSAGE);
+        }
         refresh();
         maybeTriggerAI(); // inicia IA se for vez do PC
     }
@@ -340,6 +373,7 @@ public class ChessGUI extends JFrame {
         selected = null;
         legalForSelected.clear();
         lastFrom = lastTo = null;
+        cancelAI();
         aiThinking = false;
         game.newGame();
 
@@ -453,6 +487,11 @@ public class ChessGUI extends JFrame {
         aiThinking = true;
         status.setText("Vez: Rainha de Copas — PC pensando...");
 
+        if (aiLevel == 2) {
+            startEngineSearch();
+            return;
+        }
+
         // Executa IA em thread separada (SwingWorker)
         new SwingWorker<Void, Void>() {
             Position aiFrom, aiTo;
@@ -467,17 +506,15 @@ public class ChessGUI extends JFrame {
                         return null;
                     chosen = allMoves.get(rnd.nextInt(allMoves.size()));
                 } else if (aiLevel == 1) {
-                    // Médio: prioriza capturas e centro
+                    // Médio: saldo da troca estática (capturas que ganham material, sem
+                    // deixar peça perdida) e centro
                     var allMoves = collectAllLegalMovesForSide(false);
                     if (allMoves.isEmpty())
                         return null;
                     int bestScore = Integer.MIN_VALUE;
                     List<Move> bestList = new ArrayList<>();
                     for (Move mv : allMoves) {
-                        int score = 0;
-                        Piece target = game.board().get(mv.to);
-                        if (target != null)
-                            score += pieceValue(target);
+                        int score = game.board().see(mv.from.getSquare(), mv.to.getSquare());
                         score += centerBonus(mv.to);
                         if (score > bestScore) {
                             bestScore = score;
@@ -488,15 +525,6 @@ public class ChessGUI extends JFrame {
                         }
                     }
                     chosen = bestList.get(rnd.nextInt(bestList.size()));
-                } else if (aiLevel == 2) {
-                    // Difícil: usa IANivel3
-                    IANivel3 iaNivel3 = new IANivel3();
-                    model.board.Move move = iaNivel3.makeMove(game);
-                    if (move != null) {
-                        aiFrom = move.getFrom();
-                        aiTo = move.getTo();
-                        return null;
-                    }
                 }
                 if (chosen != null) {
                     aiFrom = chosen.from;
@@ -511,31 +539,75 @@ public class ChessGUI extends JFrame {
                     get();
                 } catch (Exception ignored) {
                 }
-                if (aiFrom != null && aiTo != null && !game.isGameOver() && !game.whiteToMove()) {
-
-                    Piece capturedPiece = game.board().get(aiTo);
-                    if (capturedPiece != null) {
-                        if (capturedPiece.isWhite()) {
-                            capturedWhite.add(capturedPiece);
-                        } else {
-                            capturedBlack.add(capturedPiece);
-                        }
-                    }
+                applyAIMove(aiFrom, aiTo);
+            }
+        }.execute();
+    }
 
-                    lastFrom = aiFrom;
-                    lastTo = aiTo;
-                    Character promo = null;
-                    Piece moving = game.board().get(aiFrom);
-                    if (moving instanceof Pawn && game.isPromotion(aiFrom, aiTo)) {
-                        promo = 'Q';
+    // Difícil: o motor da sessão em busca assíncrona, com o andamento na barra de status
+    private void startEngineSearch() {
+        CancellationToken token = new CancellationToken();
+        aiToken = token;
+        engine.thinkAsync(SearchLimits.DEFAULT, token,
+                info -> SwingUtilities.invokeLater(() -> {
+                    if (aiToken == token) status.setText("Vez: Rainha de Copas — PC pensando... " + describe(info));
+                }))
+                .whenComplete((move, error) -> SwingUtilities.invokeLater(() -> {
+                    if (aiToken != token) return; // busca abandonada (novo jogo)
+                    aiToken = null;
+                    if (error != null) {
+                        aiThinking = false;
+                        refresh();
+                        JOptionPane.showMessageDialog(this, "O PC não conseguiu escolher um lance:\n" + error,
+                                "Erro na busca", JOptionPane.ERROR_MESSAGE);
+                        return;
                     }
-                    game.move(aiFrom, aiTo, promo);
+                    applyAIMove(move != null ? move.getFrom() : null, move != null ? move.getTo() : null);
+                }));
+    }
+
+    // Interrompe a busca do PC, se houver (o lance dela é descartado)
+    private void cancelAI() {
+        if (aiToken != null) {
+            aiToken.cancel();
+            aiToken = null;
+        }
+    }
+
+    private static String describe(SearchInfo info) {
+        // Visão das brancas (PC joga de pretas): mate positivo para o lado a mover é das pretas
+        String eval = info.isMate()
+                ? "mate das " + (info.mateInMoves() > 0 ? "pretas" : "brancas") + " em " + Math.abs(info.mateInMoves())
+                : String.format("%+.2f", -info.score() / 100.0);
+        String pv = info.pv().isEmpty() ? "" : " — " + info.pv().get(0);
+        return "(prof. " + info.depth() + ", " + eval + pv + ")";
+    }
+
+    // Aplica o lance escolhido pelo PC (se ainda for a vez dele) e atualiza a tela
+    private void applyAIMove(Position aiFrom, Position aiTo) {
+        if (aiFrom != null && aiTo != null && !game.isGameOver() && !game.whiteToMove()) {
+
+            Piece capturedPiece = game.board().get(aiTo);
+            if (capturedPiece != null) {
+                if (capturedPiece.isWhite()) {
+                    capturedWhite.add(capturedPiece);
+                } else {
+                    capturedBlack.add(capturedPiece);
                 }
-                aiThinking = false;
-                refresh();
-                maybeAnnounceEnd();
             }
-        }.execute();
+
+            lastFrom = aiFrom;
+            lastTo = aiTo;
+            Character promo = null;
+            Piece moving = game.board().get(aiFrom);
+            if (moving instanceof Pawn && game.isPromotion(aiFrom, aiTo)) {
+                promo = 'Q';
+            }
+            game.move(aiFrom, aiTo, promo);
+        }
+        aiThinking = false;
+        refresh();
+        maybeAnnounceEnd();
     }
 
     // Classe interna para representar um movimento simples (usada pela IA)
@@ -556,7 +628,7 @@ public class ChessGUI extends JFrame {
 
         for (int r = 0; r < 8; r++) {
             for (int c = 0; c < 8; c++) {
-                Position from = new Position(r, c);
+                Position from = Position.of(r, c);
                 Piece piece = game.board().get(from);
                 if (piece != null && piece.isWhite() == whiteSide) {
                     for (Position to : game.legalMovesFrom(from)) {
@@ -568,26 +640,6 @@ public class ChessGUI extends JFrame {
         return moves;
     }
 
-    // Valor das peças para IA
-    private int pieceValue(Piece p) {
-        if (p == null)
-            return 0;
-        switch (p.getSymbol()) {
-            case "P":
-                return 100;
-            case "N":
-            case "B":
-                return 300;
-            case "R":
-                return 500;
-            case "Q":
-                return 900;
-            case "K":
-                return 20000;
-        }
-        return 0;
-    }
-
     // Bônus para casas centrais (IA)
     private int centerBonus(Position pos) {
         int r = pos.getRow(), c = pos.getColumn();
@@ -632,7 +684,7 @@ public class ChessGUI extends JFrame {
         int iconSize = computeSquareIconSize();
         for (int r = 0; r < 8; r++) {
             for (int c = 0; c < 8; c++) {
-                Piece p = game.board().get(new Position(r, c));
+                Piece p = game.board().get(r * 8 + c);
                 JButton b = squares[r][c];
 
                 if (p == null) {
@@ -655,7 +707,7 @@ public class ChessGUI extends JFrame {
 
         // 5) Atualiza status e histórico
         String side = game.whiteToMove() ? "Alice" : "Rainha de Copas";
-        String chk = game.inCheck(game.whiteToMove()) ? " — Xeque!" : "";
+        String chk = game.status().isCheck() ? " — Xeque!" : "";
         if (aiThinking)
             chk = " — PC pensando...";
         status.setText("Jogada: " + side + chk);
@@ -727,11 +779,16 @@ public class ChessGUI extends JFrame {
         if (!game.isGameOver())
             return;
         String msg;
-        if (game.inCheck(game.whiteToMove())) {
+        if (game.status().isCheckmate()) {
             msg = "Xeque-mate! Cortem-lhes a cabeça!" + (game.whiteToMove() ? "Alice" : "Rainha de Copas")
                     + " estão em mate.";
         } else {
-            msg = "Empate por afogamento (stalemate).";
+            msg = switch (game.status().state()) {
+                case DRAW_REPETITION -> "Empate por repetição tripla.";
+                case DRAW_FIFTY_MOVES -> "Empate pela regra dos 50 lances.";
+                case DRAW_INSUFFICIENT_MATERIAL -> "Empate por material insuficiente.";
+                default -> "Empate por afogamento (stalemate).";
+            };
         }
         JOptionPane.showMessageDialog(this, msg, "Fim de Jogo", JOptionPane.INFORMATION_MESSAGE);
     }